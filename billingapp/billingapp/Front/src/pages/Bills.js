@@ -12,7 +12,10 @@ const Bills = () => {
   const [showCreateModal, setShowCreateModal] = useState(false);
   const [showViewModal, setShowViewModal] = useState(false);
   const [selectedBill, setSelectedBill] = useState(null);
-  const [searchTerm, setSearchTerm] = useState('');
+  const [filters, setFilters] = useState({
+    from: '', to: '', userId: '', minAmount: '', maxAmount: '', itemId: '', category: ''
+  });
+  const [nextCursor, setNextCursor] = useState(null);
   const [users, setUsers] = useState([]);
   const [items, setItems] = useState([]);
   const [pdfLoading, setPdfLoading] = useState({});
@@ -29,11 +32,17 @@ const Bills = () => {
     fetchItems();
   }, [ isAdmin ]);
 
-  const fetchBills = async () => {
+  // Filtering happens on the server; pass the previous page's cursor to load the next one
+  const fetchBills = async (cursor = null) => {
     try {
-      setLoading(true);
-      const response = await axios.get('/api/bills');
-      setBills(response.data);
+      if (!cursor) setLoading(true);
+      const params = Object.fromEntries(
+        Object.entries(filters).filter(([, value]) => value !== '')
+      );
+      if (cursor) params.cursor = cursor;
+      const response = await axios.get('/api/bills/search', { params });
+      setBills(prev => cursor ? [...prev, ...response.data.bills] : response.data.bills);
+      setNextCursor(response.data.nextCursor || null);
     } catch (error) {
       console.error('Error fetching bills:', error);
       toast.error('Failed to fetch bills');
@@ -42,6 +51,26 @@ const Bills = () => {
     }
   };
 
+  const updateFilter = (field, value) => {
+    setFilters(prev => ({ ...prev, [field]: value }));
+  };
+
+  const clearFilters = () => {
+    setFilters({ from: '', to: '', userId: '', minAmount: '', maxAmount: '', itemId: '', category: '' });
+  };
+
+  // The list only holds summaries; load the lines when a bill is opened
+  const handleViewBill = async (billId) => {
+    try {
+      const response = await axios.get(`/api/bills/${billId}`);
+      setSelectedBill(response.data);
+      setShowViewModal(true);
+    } catch (error) {
+      console.error('Error fetching bill:', error);
+      toast.error('Failed to load bill details');
+    }
+  };
+
   const fetchUsers = async () => {
     try {
       const response = await axios.get('/api/v1/users');
@@ -159,14 +188,7 @@ const Bills = () => {
     }
   };
 
-  const filteredBills = bills.filter(bill => {
-    const searchLower = searchTerm.toLowerCase();
-    return (
-      bill.id.toString().includes(searchLower) ||
-      bill.user?.fullName?.toLowerCase().includes(searchLower) ||
-      bill.user?.username?.toLowerCase().includes(searchLower)
-    );
-  });
+  const categories = [...new Set(items.map(item => item.category).filter(Boolean))].sort();
 
   const handleDownloadPDF = async (billId) => {
     try {
@@ -250,25 +272,109 @@ const Bills = () => {
           <Col>
             <Card className="card-custom border-0">
               <Card.Body>
-                <Row>
-                  <Col md={6}>
-                    <div className="position-relative">
-                      <FaSearch className="position-absolute top-50 start-0 translate-middle-y ms-3 text-muted" />
+                <Form onSubmit={(e) => { e.preventDefault(); fetchBills(); }}>
+                  <Row className="g-2 align-items-end">
+                    <Col md={2}>
+                      <Form.Label className="small">From</Form.Label>
                       <Form.Control
-                        type="text"
-                        placeholder="Search bills by ID, user name, or username..."
-                        value={searchTerm}
-                        onChange={(e) => setSearchTerm(e.target.value)}
-                        className="form-control-custom ps-5"
+                        type="date"
+                        value={filters.from}
+                        onChange={(e) => updateFilter('from', e.target.value)}
+                        className="form-control-custom"
                       />
-                    </div>
-                  </Col>
-                  <Col md={6} className="text-md-end">
-                    <Badge bg="info" className="fs-6 p-2">
-                      Total Bills: {filteredBills.length}
-                    </Badge>
-                  </Col>
-                </Row>
+                    </Col>
+                    <Col md={2}>
+                      <Form.Label className="small">To</Form.Label>
+                      <Form.Control
+                        type="date"
+                        value={filters.to}
+                        onChange={(e) => updateFilter('to', e.target.value)}
+                        className="form-control-custom"
+                      />
+                    </Col>
+                    {isAdmin() && (
+                      <Col md={2}>
+                        <Form.Label className="small">Customer</Form.Label>
+                        <Form.Select
+                          value={filters.userId}
+                          onChange={(e) => updateFilter('userId', e.target.value)}
+                          className="form-control-custom"
+                        >
+                          <option value="">All customers</option>
+                          {users.map(user => (
+                            <option key={user.id} value={user.id}>
+                              {user.fullName} (@{user.username})
+                            </option>
+                          ))}
+                        </Form.Select>
+                      </Col>
+                    )}
+                    <Col md={1}>
+                      <Form.Label className="small">Min</Form.Label>
+                      <Form.Control
+                        type="number"
+                        value={filters.minAmount}
+                        onChange={(e) => updateFilter('minAmount', e.target.value)}
+                        className="form-control-custom"
+                        step="0.01"
+                        min="0"
+                      />
+                    </Col>
+                    <Col md={1}>
+                      <Form.Label className="small">Max</Form.Label>
+                      <Form.Control
+                        type="number"
+                        value={filters.maxAmount}
+                        onChange={(e) => updateFilter('maxAmount', e.target.value)}
+                        className="form-control-custom"
+                        step="0.01"
+                        min="0"
+                      />
+                    </Col>
+                    <Col md={2}>
+                      <Form.Label className="small">Item</Form.Label>
+                      <Form.Select
+                        value={filters.itemId}
+                        onChange={(e) => updateFilter('itemId', e.target.value)}
+                        className="form-control-custom"
+                      >
+                        <option value="">Any item</option>
+                        {items.map(item => (
+                          <option key={item.id} value={item.id}>{item.name}</option>
+                        ))}
+                      </Form.Select>
+                    </Col>
+                    <Col md={2}>
+                      <Form.Label className="small">Category</Form.Label>
+                      <Form.Select
+                        value={filters.category}
+                        onChange={(e) => updateFilter('category', e.target.value)}
+                        className="form-control-custom"
+                      >
+                        <option value="">Any category</option>
+                        {categories.map(category => (
+                          <option key={category} value={category}>{category}</option>
+                        ))}
+                      </Form.Select>
+                    </Col>
+                  </Row>
+                  <Row className="mt-3">
+                    <Col md={6}>
+                      <Button type="submit" className="btn-custom me-2">
+                        <FaSearch className="me-2" />
+                        Search
+                      </Button>
+                      <Button variant="outline-secondary" onClick={clearFilters}>
+                        Clear
+                      </Button>
+                    </Col>
+                    <Col md={6} className="text-md-end">
+                      <Badge bg="info" className="fs-6 p-2">
+                        Showing {bills.length}{nextCursor ? '+' : ''} bills
+                      </Badge>
+                    </Col>
+                  </Row>
+                </Form>
               </Card.Body>
             </Card>
           </Col>
@@ -291,7 +397,7 @@ const Bills = () => {
                     </tr>
                   </thead>
                   <tbody>
-                    {filteredBills.length === 0 ? (
+                    {bills.length === 0 ? (
                       <tr>
                         <td colSpan="6" className="text-center py-5">
                           <div className="text-muted">
@@ -302,37 +408,25 @@ const Bills = () => {
                         </td>
                       </tr>
                     ) : (
-                      filteredBills.map((bill) => (
+                      bills.map((bill) => (
                         <tr key={bill.id}>
                           <td>
                             <Badge bg="primary" className="fs-6">
-                              #{bill.id}
+                              {bill.displayNumber || `#${bill.id}`}
                             </Badge>
                           </td>
                           <td>
-                            <div>
-                              <div className="fw-semibold">
-                                {bill.user?.fullName || 'N/A'}
-                              </div>
-                              <small className="text-muted">
-                                @{bill.user?.username}
-                              </small>
+                            <div className="fw-semibold">
+                              {bill.customerName || 'N/A'}
                             </div>
                           </td>
                           <td>{formatDate(bill.billDate)}</td>
                           <td>
-                            <div>
-                              {bill.items && bill.items.length > 0 ? (
-                                bill.items.map((item, index) => (
-                                  <div key={index} className="mb-1">
-                                    <span className="fw-semibold">{item.item?.name || 'N/A'}</span>
-                                    <small className="text-muted ms-2">(x{item.quantity})</small>
-                                  </div>
-                                ))
-                              ) : (
-                                <Badge bg="secondary">No items</Badge>
-                              )}
-                            </div>
+                            {bill.lineCount > 0 ? (
+                              <Badge bg="secondary">{bill.lineCount} {bill.lineCount === 1 ? 'line' : 'lines'}</Badge>
+                            ) : (
+                              <Badge bg="secondary">No items</Badge>
+                            )}
                           </td>
                           <td className="fw-bold">
                             {formatCurrency(bill.totalAmount || 0)}
@@ -342,10 +436,7 @@ const Bills = () => {
                               <Button
                                 size="sm"
                                 variant="outline-primary"
-                                onClick={() => {
-                                  setSelectedBill(bill);
-                                  setShowViewModal(true);
-                                }}
+                                onClick={() => handleViewBill(bill.id)}
                               >
                                 <FaEye />
                               </Button>
@@ -392,6 +483,13 @@ const Bills = () => {
                     )}
                   </tbody>
                 </Table>
+                {nextCursor && (
+                  <div className="text-center p-3">
+                    <Button variant="outline-primary" onClick={() => fetchBills(nextCursor)}>
+                      Load more
+                    </Button>
+                  </div>
+                )}
               </Card.Body>
             </Card>
           </Col>
@@ -25,45 +25,51 @@ const Dashboard = () => {
   const [recentBills, setRecentBills] = useState([]);
   const [loading, setLoading] = useState(true);
 
-  useEffect(() => {
-    const fetchDashboardStats = async () => {
-      try {
-        setLoading(true);
-        
-        // Fetch statistics from backend
-        const [billsResponse, itemsResponse, usersResponse] = await Promise.all([
-          axios.get('/api/bills'),
-          axios.get('/api/v1/items'),
-          isAdmin() ? axios.get('/api/v1/users') : Promise.resolve({ data: [] })
-        ]);
+  const fetchDashboardStats = async () => {
+    try {
+      setLoading(true);
+      
+      // Counts, totals and the 5 most recent bills are computed by the server
+      const response = await axios.get('/api/dashboard/stats');
 
-        const totalAmount = billsResponse.data.reduce((sum, bill) => sum + (bill.totalAmount || 0), 0);
-        
-        // Calculate total items purchased by customers
-        const totalItemsPurchased = billsResponse.data.reduce((sum, bill) => {
-          return sum + (bill.items?.reduce((itemSum, item) => itemSum + (item.quantity || 0), 0) || 0);
-        }, 0);
+      setStats({
+        totalBills: response.data.totalBills,
+        totalItems: response.data.itemsSold, // Total items purchased by customers
+        totalUsers: response.data.totalUsers || 0,
+        totalAmount: response.data.totalAmount
+      });
+      setRecentBills(response.data.recentBills || []);
+    } catch (error) {
+      console.error('Error fetching dashboard stats:', error);
+    } finally {
+      setLoading(false);
+    }
+  };
 
-        setStats({
-          totalBills: billsResponse.data.length,
-          totalItems: totalItemsPurchased, // Total items purchased by customers
-          totalUsers: usersResponse.data.length,
-          totalAmount: totalAmount
-        });
+  useEffect(() => {
+    fetchDashboardStats();
 
-        // Get recent bills (last 5)
-        const sortedBills = billsResponse.data
-          .sort((a, b) => new Date(b.billDate) - new Date(a.billDate))
-          .slice(0, 5);
-        setRecentBills(sortedBills);
-      } catch (error) {
-        console.error('Error fetching dashboard stats:', error);
-      } finally {
-        setLoading(false);
-      }
+    // Live updates: the server pushes each created/deleted bill, so the dashboard never polls.
+    // EventSource reconnects by itself and replays missed events with Last-Event-ID.
+    const events = new EventSource('/api/bills/stream', { withCredentials: true });
+    const apply = (sign) => (message) => {
+      const { bill, units } = JSON.parse(message.data);
+      setStats((current) => ({
+        ...current,
+        totalBills: current.totalBills + sign,
+        totalItems: current.totalItems + sign * units,
+        totalAmount: current.totalAmount + sign * bill.totalAmount
+      }));
+      setRecentBills((current) => sign > 0
+        ? [bill, ...current.filter((b) => b.id !== bill.id)].slice(0, 5)
+        : current.filter((b) => b.id !== bill.id));
     };
-
-    fetchDashboardStats();
+    events.addEventListener('created', apply(1));
+    events.addEventListener('deleted', apply(-1));
+    // Too many events were missed to replay them
+    events.addEventListener('reset', () => fetchDashboardStats());
+    return () => events.close();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [isAdmin]);
 
   const formatCurrency = (amount) => {
@@ -290,12 +296,10 @@ const Dashboard = () => {
                         <div className="text-end">
                           <div className="fw-bold text-success">{formatCurrency(bill.totalAmount)}</div>
                           <div className="text-muted" style={{fontSize: '0.75rem'}}>
-                            {bill.items && bill.items.length > 0 ? (
-                              bill.items.map((item, idx) => (
-                                <div key={idx}>
-                                  {item.item?.name || 'N/A'} (x{item.quantity})
-                                </div>
-                              ))
+                            {bill.lineCount > 0 ? (
+                              <div>
+                                {bill.customerName || 'N/A'} · {bill.lineCount} {bill.lineCount === 1 ? 'item' : 'items'}
+                              </div>
                             ) : (
                               <small>No items</small>
                             )}
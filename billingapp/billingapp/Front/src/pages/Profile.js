@@ -32,26 +32,27 @@ const Profile = () => {
     fetchUserStats();
   }, [user]);
 
+  // Lifetime totals come from the dashboard aggregates; only this month's bills are paged through
   const fetchUserStats = async () => {
     try {
-      const response = await axios.get('/api/bills');
-      const userBills = response.data || [];
-      
-      const currentMonth = new Date().getMonth();
-      const currentYear = new Date().getFullYear();
-      
-      const thisMonthBills = userBills.filter(bill => {
-        if (!bill.billDate) return false;
-        const billDate = new Date(bill.billDate);
-        return billDate.getMonth() === currentMonth && billDate.getFullYear() === currentYear;
-      });
-      
-      const totalSpent = userBills.reduce((sum, bill) => sum + (bill.totalAmount || 0), 0);
-      
+      const statsResponse = await axios.get('/api/dashboard/stats');
+
+      const now = new Date();
+      const monthStart = `${now.getFullYear()}-${String(now.getMonth() + 1).padStart(2, '0')}-01`;
+      let thisMonth = 0;
+      let cursor = null;
+      do {
+        const params = { from: monthStart, size: 200 };
+        if (cursor) params.cursor = cursor;
+        const response = await axios.get('/api/bills', { params });
+        thisMonth += (response.data.bills || []).length;
+        cursor = response.data.nextCursor || null;
+      } while (cursor);
+
       setUserStats({
-        totalBills: userBills.length,
-        thisMonth: thisMonthBills.length,
-        totalSpent: totalSpent
+        totalBills: statsResponse.data.totalBills || 0,
+        thisMonth: thisMonth,
+        totalSpent: statsResponse.data.totalAmount || 0
       });
     } catch (error) {
       console.error('Error fetching user stats:', error);
@@ -24,25 +24,41 @@ const AdminDashboard = () => {
 
   useEffect(() => {
     fetchAdminStats();
+
+    // Live updates pushed by the server instead of polling (see /api/bills/stream)
+    const events = new EventSource('/api/bills/stream', { withCredentials: true });
+    const apply = (sign) => (message) => {
+      const { bill } = JSON.parse(message.data);
+      setStats((current) => ({
+        ...current,
+        totalBills: current.totalBills + sign,
+        totalAmount: current.totalAmount + sign * bill.totalAmount
+      }));
+    };
+    events.addEventListener('created', apply(1));
+    events.addEventListener('deleted', apply(-1));
+    events.addEventListener('reset', () => fetchAdminStats());
+    events.addEventListener('stock-alert', (message) => {
+      const item = JSON.parse(message.data);
+      toast.warn(item.level === 'OUT'
+        ? `${item.name} is out of stock`
+        : `${item.name} is running low (${item.stock} left)`);
+    });
+    return () => events.close();
   }, []);
 
   const fetchAdminStats = async () => {
     try {
       setLoading(true);
       
-      const [usersResponse, billsResponse, itemsResponse] = await Promise.all([
-        axios.get('/api/v1/users'),
-        axios.get('/api/bills'),
-        axios.get('/api/v1/items')
-      ]);
-
-      const totalAmount = billsResponse.data.reduce((sum, bill) => sum + (bill.totalAmount || 0), 0);
+      // Counts and totals are computed by the server
+      const response = await axios.get('/api/dashboard/stats');
 
       setStats({
-        totalUsers: usersResponse.data.length,
-        totalBills: billsResponse.data.length,
-        totalItems: itemsResponse.data.length,
-        totalAmount: totalAmount
+        totalUsers: response.data.totalUsers,
+        totalBills: response.data.totalBills,
+        totalItems: response.data.totalItems,
+        totalAmount: response.data.totalAmount
       });
     } catch (error) {
       console.error('Error fetching admin stats:', error);
@@ -9,6 +9,7 @@ const UserBills = () => {
   const { userId } = useParams();
   const navigate = useNavigate();
   const [bills, setBills] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [user, setUser] = useState(null);
   const [loading, setLoading] = useState(true);
   const [showViewModal, setShowViewModal] = useState(false);
@@ -20,11 +21,13 @@ const UserBills = () => {
     fetchUserDetails();
   }, [userId]);
 
-  const fetchUserBills = async () => {
+  // Pages of bill summaries, newest first; pass the previous page's cursor to load the next one
+  const fetchUserBills = async (cursor = null) => {
     try {
-      setLoading(true);
-      const response = await axios.get(`/api/bills/user/${userId}`);
-      setBills(response.data);
+      if (!cursor) setLoading(true);
+      const response = await axios.get(`/api/bills/user/${userId}`, { params: cursor ? { cursor } : {} });
+      setBills(prev => cursor ? [...prev, ...response.data.bills] : response.data.bills);
+      setNextCursor(response.data.nextCursor || null);
     } catch (error) {
       console.error('Error fetching user bills:', error);
       if (error.response?.status === 404) {
@@ -37,6 +40,18 @@ const UserBills = () => {
     }
   };
 
+  // The list only holds summaries; load the lines when a bill is opened
+  const handleViewBill = async (billId) => {
+    try {
+      const response = await axios.get(`/api/bills/${billId}`);
+      setSelectedBill(response.data);
+      setShowViewModal(true);
+    } catch (error) {
+      console.error('Error fetching bill:', error);
+      toast.error('Failed to load bill details');
+    }
+  };
+
   const fetchUserDetails = async () => {
     try {
       const response = await axios.get(`/api/v1/users/${userId}`);
@@ -177,7 +192,7 @@ const UserBills = () => {
                     </Col>
                     <Col md={4} className="text-md-end">
                       <Badge bg="info" className="fs-6 p-2">
-                        Total Bills: {bills.length}
+                        Total Bills: {bills.length}{nextCursor ? '+' : ''}
                       </Badge>
                     </Col>
                   </Row>
@@ -223,18 +238,11 @@ const UserBills = () => {
                           </td>
                           <td>{formatDate(bill.billDate)}</td>
                           <td>
-                            <div>
-                              {bill.items && bill.items.length > 0 ? (
-                                bill.items.map((item, index) => (
-                                  <div key={index} className="mb-1">
-                                    <span className="fw-semibold">{item.item?.name || 'N/A'}</span>
-                                    <small className="text-muted ms-2">(x{item.quantity})</small>
-                                  </div>
-                                ))
-                              ) : (
-                                <Badge bg="secondary">No items</Badge>
-                              )}
-                            </div>
+                            {bill.lineCount > 0 ? (
+                              <Badge bg="secondary">{bill.lineCount} {bill.lineCount === 1 ? 'line' : 'lines'}</Badge>
+                            ) : (
+                              <Badge bg="secondary">No items</Badge>
+                            )}
                           </td>
                           <td className="fw-bold">
                             {formatCurrency(bill.totalAmount || 0)}
@@ -244,10 +252,7 @@ const UserBills = () => {
                               <Button
                                 size="sm"
                                 variant="outline-primary"
-                                onClick={() => {
-                                  setSelectedBill(bill);
-                                  setShowViewModal(true);
-                                }}
+                                onClick={() => handleViewBill(bill.id)}
                                 title="View Bill Details"
                               >
                                 <FaEye />
@@ -285,6 +290,13 @@ const UserBills = () => {
                     )}
                   </tbody>
                 </Table>
+                {nextCursor && (
+                  <div className="text-center p-3">
+                    <Button variant="outline-primary" onClick={() => fetchUserBills(nextCursor)}>
+                      Load more
+                    </Button>
+                  </div>
+                )}
               </Card.Body>
             </Card>
           </Col>
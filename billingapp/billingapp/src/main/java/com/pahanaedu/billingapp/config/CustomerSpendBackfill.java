@@ -0,0 +1,34 @@
+package com.pahanaedu.billingapp.config;
+
+import com.pahanaedu.billingapp.service.CustomerSpendService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills customer_spend from the existing bills the first time the application starts with
+ * an empty table. Runs after MoneyColumnMigrator, which it depends on for the cents columns.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class CustomerSpendBackfill implements CommandLineRunner {
+
+    private final CustomerSpendService customerSpendService;
+    private final boolean enabled;
+
+    public CustomerSpendBackfill(CustomerSpendService customerSpendService,
+                                 @Value("${app.customer-spend.backfill-on-startup:true}") boolean enabled) {
+        this.customerSpendService = customerSpendService;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled || !customerSpendService.isEmpty()) {
+            return;
+        }
+        customerSpendService.repair();
+    }
+}
@@ -0,0 +1,85 @@
+package com.pahanaedu.billingapp.config;
+
+import com.pahanaedu.billingapp.model.PooledId;
+import com.pahanaedu.billingapp.model.PooledIdGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+
+/**
+ * Moves every id_generator row past the ids already stored in its table.
+ * Needed for databases that were filled while the ids were IDENTITY columns,
+ * and for rows inserted with explicit ids (data.sql). Runs once every singleton (and so the
+ * schema update) is ready, but before the web server takes requests and the scheduled jobs
+ * start, so no bill can be given an id from a row that is not aligned yet.
+ */
+@Component
+@Slf4j
+public class IdGeneratorAligner implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final int allocationSize;
+
+    public IdGeneratorAligner(EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.app.id.allocation_size:" + PooledIdGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.allocationSize = allocationSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            PooledId pooledId = findPooledId(entity.getJavaType());
+            if (pooledId != null) {
+                // By convention the segment is the entity's table name
+                align(pooledId.value());
+            }
+        }
+    }
+
+    private void align(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long floor = (maxId == null ? 0 : maxId) + allocationSize + 1;
+
+        int updated = jdbcTemplate.update(
+                "UPDATE " + PooledIdGenerator.TABLE + " SET " + PooledIdGenerator.VALUE_COLUMN + " = ?"
+                        + " WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ? AND " + PooledIdGenerator.VALUE_COLUMN + " < ?",
+                floor, table, floor);
+        if (updated == 0) {
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + PooledIdGenerator.TABLE + " WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ?",
+                    Integer.class, table);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update(
+                        "INSERT INTO " + PooledIdGenerator.TABLE + " (" + PooledIdGenerator.SEGMENT_COLUMN + ", "
+                                + PooledIdGenerator.VALUE_COLUMN + ") VALUES (?, ?)",
+                        table, floor);
+                updated = 1;
+            }
+        }
+        if (updated > 0) {
+            log.info("Aligned id generator '{}' past existing id {}", table, maxId);
+        }
+    }
+
+    private static PooledId findPooledId(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                PooledId pooledId = field.getAnnotation(PooledId.class);
+                if (pooledId != null) {
+                    return pooledId;
+                }
+            }
+        }
+        return null;
+    }
+}
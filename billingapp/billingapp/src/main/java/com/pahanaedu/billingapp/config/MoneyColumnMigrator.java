@@ -0,0 +1,72 @@
+package com.pahanaedu.billingapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Converts the old floating-point money columns to the cents columns that replaced them.
+ * ddl-auto=update adds the new columns but leaves the old NOT NULL ones behind, which
+ * would block every insert; each old column is copied into its cents column and dropped.
+ * Runs once the schema update is done, before the web server, the scheduled jobs, the startup
+ * runners and the ApplicationReadyEvent listeners (ledger, analytics, popularity) read any money.
+ */
+@Component
+@Slf4j
+public class MoneyColumnMigrator implements SmartInitializingSingleton {
+
+    // table, old column (rupees as double), new column (cents as bigint)
+    private static final String[][] COLUMNS = {
+            {"item", "price", "price_cents"},
+            {"bill", "total_amount", "total_amount_cents"},
+            {"bill_item", "unit_price", "unit_price_cents"},
+            {"bill_item", "subtotal", "subtotal_cents"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MoneyColumnMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    public void migrate() {
+        for (String[] column : COLUMNS) {
+            migrate(column[0], column[1], column[2]);
+        }
+    }
+
+    private void migrate(String table, String legacyColumn, String centsColumn) {
+        if (!columnExists(table, legacyColumn)) {
+            return;
+        }
+        int copied = jdbcTemplate.update("UPDATE " + table + " SET " + centsColumn + " = ROUND(" + legacyColumn + " * 100)"
+                + " WHERE " + legacyColumn + " IS NOT NULL AND (" + centsColumn + " IS NULL OR " + centsColumn + " = 0)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + legacyColumn);
+        log.info("Moved {} values of {}.{} to {} and dropped the old column", copied, table, legacyColumn, centsColumn);
+    }
+
+    private boolean columnExists(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // MySQL reports names in lower case, H2 in upper case
+            for (String[] names : new String[][]{{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -0,0 +1,39 @@
+package com.pahanaedu.billingapp.config;
+
+import com.pahanaedu.billingapp.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills daily_sales_rollup from the existing bills the first time the application starts with
+ * an empty rollup table. Runs after MoneyColumnMigrator, which it depends on for the cents columns.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@Slf4j
+public class SalesRollupBackfill implements CommandLineRunner {
+
+    private final SalesRollupService salesRollupService;
+    private final boolean enabled;
+
+    public SalesRollupBackfill(SalesRollupService salesRollupService,
+                               @Value("${app.rollup.backfill-on-startup:true}") boolean enabled) {
+        this.salesRollupService = salesRollupService;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled || !salesRollupService.isEmpty()) {
+            return;
+        }
+        int rows = salesRollupService.rebuildAll();
+        if (rows > 0) {
+            log.info("Backfilled {} daily sales rollup rows from existing bills", rows);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.pahanaedu.billingapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (stock ledger flushing, etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,12 +1,21 @@
 package com.pahanaedu.billingapp.controller;
 
+import com.pahanaedu.billingapp.dto.BillPage;
+import com.pahanaedu.billingapp.dto.DashboardStats;
+import com.pahanaedu.billingapp.dto.SalesBucket;
 import com.pahanaedu.billingapp.dto.UserProfileDTO;
+import com.pahanaedu.billingapp.model.CustomerSpend;
 import com.pahanaedu.billingapp.model.Role;
 import com.pahanaedu.billingapp.model.User;
 import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.DashboardService;
+import com.pahanaedu.billingapp.service.SalesReportService;
+import com.pahanaedu.billingapp.repository.CustomerSpendRepository;
 import com.pahanaedu.billingapp.repository.RoleRepository;
 import com.pahanaedu.billingapp.service.UserService;
+import com.pahanaedu.billingapp.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -14,12 +23,17 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int USER_BILLS_PAGE_SIZE = 50;
+
     @Autowired
     private UserService userService;
 
@@ -29,6 +43,15 @@ public class AdminController {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @Autowired
+    private CustomerSpendRepository customerSpendRepository;
+
     // Admin Dashboard
     @GetMapping("/dashboard")
     public String adminDashboard(Model model) {
@@ -45,20 +68,19 @@ public class AdminController {
             return "redirect:/?error=access_denied";
         }
         
-        // Get statistics for admin dashboard
-        long totalUsers = userService.getAllUsers().size();
-        long totalBills = billService.getAllBills().size();
+        // Get statistics for admin dashboard (aggregate queries, no rows are loaded)
+        DashboardStats stats = dashboardService.getStats(null, true);
         
         model.addAttribute("currentUser", currentUser);
-        model.addAttribute("totalUsers", totalUsers);
-        model.addAttribute("totalBills", totalBills);
+        model.addAttribute("totalUsers", stats.getTotalUsers());
+        model.addAttribute("totalBills", stats.getTotalBills());
         
         return "admin/dashboard";
     }
 
-    // User Management - List all users
+    // User Management - List all users; sort=spend lists the biggest spenders first
     @GetMapping("/users")
-    public String listUsers(Model model) {
+    public String listUsers(@RequestParam(value = "sort", required = false) String sort, Model model) {
         // Get current authenticated user
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -72,8 +94,15 @@ public class AdminController {
             return "redirect:/?error=access_denied";
         }
         
-        List<User> users = userService.getAllUsers();
+        List<User> users = "spend".equals(sort) ? userService.getAllUsersBySpend() : userService.getAllUsers();
+        // Lifetime totals per user from customer_spend (one row per customer, no bills are read)
+        Map<Long, CustomerSpend> spend = new HashMap<>();
+        for (CustomerSpend customerSpend : customerSpendRepository.findAll()) {
+            spend.put(customerSpend.getUserId(), customerSpend);
+        }
         model.addAttribute("users", users);
+        model.addAttribute("spend", spend);
+        model.addAttribute("sort", "spend".equals(sort) ? "spend" : null);
         model.addAttribute("currentUser", currentUser);
         
         return "admin/users";
@@ -319,9 +348,12 @@ public class AdminController {
         }
     }
 
-    // View user bills (admin can view any user's bills)
+    // View user bills (admin can view any user's bills), newest first one page at a time;
+    // the summary comes from the customer's lifetime totals
     @GetMapping("/users/{userId}/bills")
-    public String viewUserBills(@PathVariable("userId") Long userId, Model model) {
+    public String viewUserBills(@PathVariable("userId") Long userId,
+                                @RequestParam(value = "cursor", required = false) String cursor,
+                                Model model) {
         // Get current authenticated user
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -336,12 +368,76 @@ public class AdminController {
         }
         
         User targetUser = userService.getUserById(userId);
-        List<com.pahanaedu.billingapp.model.Bill> userBills = billService.getBillsByUserId(userId);
+        BillPage page = billService.getBillPage(userId, null, null, cursor, USER_BILLS_PAGE_SIZE);
         
         model.addAttribute("targetUser", targetUser);
-        model.addAttribute("bills", userBills);
+        model.addAttribute("bills", page.getBills());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("spend", customerSpendRepository.findById(userId).orElse(null));
         model.addAttribute("currentUser", currentUser);
         
         return "admin/user_bills";
     }
+
+    // Printable end-of-day Z report (default today)
+    @GetMapping("/reports/z")
+    public String zReport(@RequestParam(value = "date", required = false)
+                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, Model model) {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Verify admin role
+        if (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            return "redirect:/?error=access_denied";
+        }
+
+        model.addAttribute("report", salesReportService.zReport(date != null ? date : LocalDate.now()));
+        model.addAttribute("currentUser", currentUser);
+
+        return "admin/z_report";
+    }
+
+    // Printable sales per hour, day or month; from/to are inclusive dates (default the last 30 days)
+    @GetMapping("/reports/sales")
+    public String salesReport(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+                              @RequestParam(value = "from", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(value = "to", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              Model model) {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Verify admin role
+        if (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            return "redirect:/?error=access_denied";
+        }
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        SalesReportService.Bucket size = SalesReportService.Bucket.valueOf(bucket.trim().toUpperCase());
+        List<SalesBucket> series =
+                salesReportService.timeSeries(size, start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+
+        model.addAttribute("bucket", size.name().toLowerCase());
+        model.addAttribute("from", start);
+        model.addAttribute("to", end);
+        model.addAttribute("series", series);
+        model.addAttribute("totalBills", series.stream().mapToLong(SalesBucket::getBills).sum());
+        model.addAttribute("totalRevenue", Money.toMajor(
+                series.stream().mapToLong(SalesBucket::getRevenueCents).sum()));
+        model.addAttribute("currentUser", currentUser);
+
+        return "admin/sales_report";
+    }
 }
@@ -1,38 +1,94 @@
 package com.pahanaedu.billingapp.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillBatchResult;
 import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillPage;
+import com.pahanaedu.billingapp.dto.BillSearchCriteria;
+import com.pahanaedu.billingapp.dto.BillTicket;
 import com.pahanaedu.billingapp.model.Bill;
 import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.service.BillEventPublisher;
+import com.pahanaedu.billingapp.service.BillExportService;
+import com.pahanaedu.billingapp.service.BillJsonCache;
 import com.pahanaedu.billingapp.service.BillPDFService;
+import com.pahanaedu.billingapp.service.BillPipeline;
 import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.IdempotencyService;
 import com.pahanaedu.billingapp.service.UserService;
+import com.pahanaedu.billingapp.util.Money;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/bills")
 @Tag(name = "Bill API", description = "Manage bills and billing items")
 public class BillController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final BillService billService;
+    private final BillPipeline billPipeline;
+    private final BillExportService billExportService;
+    private final BillJsonCache billJsonCache;
+    private final BillEventPublisher billEventPublisher;
     private final BillPDFService billPDFService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final int batchChunkSize;
 
-    public BillController(BillService billService, BillPDFService billPDFService, UserService userService) {
+    public BillController(BillService billService, BillPipeline billPipeline, BillExportService billExportService,
+                          BillJsonCache billJsonCache, BillEventPublisher billEventPublisher,
+                          BillPDFService billPDFService, UserService userService,
+                          IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                          @Value("${app.billing.batch-chunk-size:500}") int batchChunkSize) {
         this.billService = billService;
+        this.billPipeline = billPipeline;
+        this.billExportService = billExportService;
+        this.billJsonCache = billJsonCache;
+        this.billEventPublisher = billEventPublisher;
         this.billPDFService = billPDFService;
         this.userService = userService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.batchChunkSize = batchChunkSize;
     }
 
     @GetMapping
-    @Operation(summary = "Get bills (filtered by user role)")
-    public ResponseEntity<?> getAllBills() {
+    @Operation(summary = "Get one page of bills, newest first (filtered by user role). "
+            + "Pass the returned nextCursor as cursor for the next page; from/to are inclusive dates")
+    public ResponseEntity<?> getAllBills(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", defaultValue = "50") int size,
+                                         @RequestParam(value = "userId", required = false) Long userId,
+                                         @RequestParam(value = "from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -41,26 +97,90 @@ public class BillController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            List<Bill> bills;
-            if (currentUser.getRoles().stream().anyMatch(role -> 
+            if (!currentUser.getRoles().stream().anyMatch(role -> 
                     "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
-                // Admin can see all bills
-                bills = billService.getAllBills();
-            } else {
                 // Regular users can only see their own bills
-                bills = billService.getBillsByUserId(currentUser.getId());
+                userId = currentUser.getId();
             }
             
-            return ResponseEntity.ok(bills);
+            if (ConditionalRequests.notModified(webRequest,
+                    ConditionalRequests.listETag(billService.getListVersion(), userId, webRequest), null)) {
+                return null;
+            }
+
+            BillPage page = billService.getBillPage(userId,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null,
+                    cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error retrieving bills: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving bills: " + e.getMessage());
         }
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search bills page by page, newest first (own bills only for regular users). "
+            + "from/to are inclusive dates, minAmount/maxAmount bound the bill total, itemId/category match any line")
+    public ResponseEntity<?> searchBills(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", defaultValue = "50") int size,
+                                         @RequestParam(value = "userId", required = false) Long userId,
+                                         @RequestParam(value = "from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(value = "minAmount", required = false) Double minAmount,
+                                         @RequestParam(value = "maxAmount", required = false) Double maxAmount,
+                                         @RequestParam(value = "itemId", required = false) Long itemId,
+                                         @RequestParam(value = "category", required = false) String category,
+                                         ServletWebRequest webRequest) {
+        try {
+            // Get current authenticated user
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            String username = auth.getName();
+
+            User currentUser = userService.findByUsername(username)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            if (!currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+                // Regular users can only search their own bills
+                userId = currentUser.getId();
+            }
+
+            if (ConditionalRequests.notModified(webRequest,
+                    ConditionalRequests.listETag(billService.getListVersion(), userId, webRequest), null)) {
+                return null;
+            }
+
+            BillSearchCriteria criteria = new BillSearchCriteria(userId,
+                    from != null ? from.atStartOfDay() : null,
+                    to != null ? to.plusDays(1).atStartOfDay() : null);
+            criteria.setMinAmountCents(minAmount != null ? Money.ofMajor(minAmount) : null);
+            criteria.setMaxAmountCents(maxAmount != null ? Money.ofMajor(maxAmount) : null);
+            criteria.setItemId(itemId);
+            criteria.setCategory(category);
+
+            BillPage page = billService.searchBills(criteria, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error searching bills: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error searching bills: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/user/{userId}")
-    @Operation(summary = "Get bills by user ID (admin only)")
-    public ResponseEntity<?> getBillsByUserId(@PathVariable Long userId) {
+    @Operation(summary = "Get one page of a user's bills, newest first (admin only)")
+    public ResponseEntity<?> getBillsByUserId(@PathVariable Long userId,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "50") int size,
+                                              ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -76,8 +196,16 @@ public class BillController {
                         .body("Access denied: Only admins can view other users' bills");
             }
             
-            List<Bill> bills = billService.getBillsByUserId(userId);
-            return ResponseEntity.ok(bills);
+            if (ConditionalRequests.notModified(webRequest,
+                    ConditionalRequests.listETag(billService.getListVersion(), userId, webRequest), null)) {
+                return null;
+            }
+
+            BillPage page = billService.getBillPage(userId, null, null, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error retrieving user bills: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving user bills: " + e.getMessage());
@@ -86,7 +214,7 @@ public class BillController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get bill by ID (with user ownership validation)")
-    public ResponseEntity<?> getBillById(@PathVariable Long id) {
+    public ResponseEntity<?> getBillById(@PathVariable Long id, ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -95,9 +223,28 @@ public class BillController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Recently viewed bills are answered from their cached JSON, without loading or serializing them
+            BillJsonCache.Cached cached = billJsonCache.get(id);
+            if (cached != null && (isAdmin || currentUser.getId().equals(cached.getUserId()))) {
+                if (ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "json"), cached.getBillDate())) {
+                    return null;
+                }
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cached.getJson());
+            }
+
+            // Answer 304 before the bill is loaded when the client already has it
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "json"), billDate.get())) {
+                return null;
+            }
+
+            long cacheGeneration = billJsonCache.generation();
             Bill bill;
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can view any bill
                 bill = billService.getBillById(id);
             } else {
@@ -105,7 +252,10 @@ public class BillController {
                 bill = billService.getBillByIdAndUserId(id, currentUser.getId());
             }
             
-            return ResponseEntity.ok(bill);
+            byte[] json = objectMapper.writeValueAsBytes(bill);
+            billJsonCache.put(id, new BillJsonCache.Cached(json,
+                    bill.getUser() != null ? bill.getUser().getId() : null, bill.getBillDate()), cacheGeneration);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body("Access denied: " + e.getMessage());
@@ -116,8 +266,11 @@ public class BillController {
     }
 
     @PostMapping
-    @Operation(summary = "Create a new bill (with user ownership validation)")
-    public ResponseEntity<?> createBill(@RequestBody BillDTO billDTO) {
+    @Operation(summary = "Create a new bill (with user ownership validation). Retries with the same Idempotency-Key return the original bill; "
+            + "async=true queues the bill and returns 202 with a ticket to poll")
+    public ResponseEntity<?> createBill(@RequestBody BillDTO billDTO,
+                                        @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -134,14 +287,237 @@ public class BillController {
                         .body("Access denied: You can only create bills for yourself!");
             }
             
-        Bill createdBill = billService.createBill(billDTO);
-        return ResponseEntity.ok(createdBill);
+            if (async) {
+                BillTicket ticket = idempotencyKey == null || idempotencyKey.isBlank()
+                        ? billPipeline.submit(billDTO, username)
+                        : idempotencyService.execute("async:" + username + ":" + idempotencyKey, billDTO,
+                                () -> billPipeline.submit(billDTO, username));
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/bills/tickets/" + ticket.getId()))
+                        .body(ticket);
+            }
+
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(billService.createBill(billDTO));
+            }
+
+            // Keys are scoped per user so clients cannot collide with each other
+            Bill createdBill = idempotencyService.execute("api:" + username + ":" + idempotencyKey, billDTO,
+                    () -> billService.createBill(billDTO));
+            return ResponseEntity.ok(createdBill);
+        } catch (BillPipeline.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Error creating bill: " + e.getMessage());
+        } catch (IdempotencyService.KeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("Error creating bill: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error creating bill: " + e.getMessage());
         }
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Stream every bill line as NDJSON or CSV (own bills only for regular users); from/to are inclusive dates")
+    public ResponseEntity<?> exportBills(@RequestParam(value = "format", defaultValue = BillExportService.NDJSON) String format,
+                                         @RequestParam(value = "from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Regular users can only export their own bills
+        Long userId = currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))
+                ? null : currentUser.getId();
+
+        MediaType contentType;
+        if (BillExportService.NDJSON.equals(format)) {
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else if (BillExportService.CSV.equals(format)) {
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error exporting bills: format must be ndjson or csv");
+        }
+
+        StreamingResponseBody body = out -> billExportService.export(format, userId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bills." + format).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    @Operation(summary = "Get the status of a bill submitted with async=true (PENDING, CREATED or REJECTED)")
+    public ResponseEntity<?> getTicket(@PathVariable String ticketId) {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        BillTicket ticket = billPipeline.getTicket(ticketId).orElse(null);
+        // Other users' tickets look the same as unknown ones
+        if (ticket == null || (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))
+                && !username.equals(ticket.getOwner()))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Ticket " + ticketId + " not found");
+        }
+        return ResponseEntity.ok(ticket);
+    }
+
+    @GetMapping("/pipeline/stats")
+    @Operation(summary = "Async bill queue depth and worker lag (admin only)")
+    public ResponseEntity<?> getPipelineStats() {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Access denied: Only admins can view pipeline stats");
+        }
+        return ResponseEntity.ok(billPipeline.getStats());
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Bill JSON cache size and hit/miss/eviction counts (admin only)")
+    public ResponseEntity<?> getCacheStats() {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Access denied: Only admins can view cache stats");
+        }
+        return ResponseEntity.ok(billJsonCache.getStats());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Server-Sent Events feed of created and deleted bills (own bills for regular users). "
+            + "Reconnect with Last-Event-ID to replay missed events; a reset event means reload instead")
+    public SseEmitter streamBills(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Regular users only hear about their own bills
+        Long userId = currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))
+                ? null : currentUser.getId();
+        return billEventPublisher.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/stream/stats")
+    @Operation(summary = "Bill event stream subscribers and counts (admin only)")
+    public ResponseEntity<?> getStreamStats() {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (!currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Access denied: Only admins can view stream stats");
+        }
+        return ResponseEntity.ok(billEventPublisher.getStats());
+    }
+
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk-create bills from a JSON array or NDJSON stream (one NDJSON result line per bill)")
+    public void createBillsBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Security check: Regular users can only create bills for themselves
+        Long ownerId = currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))
+                ? null : currentUser.getId();
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+
+        // Bills are read, committed and reported one chunk at a time, so memory does not grow with the upload
+        List<BillDTO> chunk = new ArrayList<>(batchChunkSize);
+        int nextIndex = 0;
+        try (MappingIterator<BillDTO> bills = objectMapper.readerFor(BillDTO.class)
+                .readValues(request.getInputStream())) {
+            while (bills.hasNextValue()) {
+                chunk.add(bills.nextValue());
+                if (chunk.size() == batchChunkSize) {
+                    nextIndex = writeBatchChunk(chunk, nextIndex, ownerId, out);
+                }
+            }
+            writeBatchChunk(chunk, nextIndex, ownerId, out);
+        } catch (JsonProcessingException e) {
+            nextIndex = writeBatchChunk(chunk, nextIndex, ownerId, out);
+            writeBatchResult(BillBatchResult.rejected(nextIndex, "Malformed input: " + e.getOriginalMessage()), out);
+        }
+        out.flush();
+    }
+
+    private int writeBatchChunk(List<BillDTO> chunk, int firstIndex, Long ownerId, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return firstIndex;
+        }
+
+        List<BillBatchResult> results;
+        try {
+            results = billService.createBills(chunk, firstIndex, ownerId);
+        } catch (Exception e) {
+            results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BillBatchResult.rejected(firstIndex + i, "Error creating bill: " + e.getMessage()));
+            }
+        }
+        for (BillBatchResult result : results) {
+            writeBatchResult(result, out);
+        }
+        out.flush();
+
+        int nextIndex = firstIndex + chunk.size();
+        chunk.clear();
+        return nextIndex;
+    }
+
+    private void writeBatchResult(BillBatchResult result, OutputStream out) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(result));
+        out.write('\n');
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a bill by ID (with user ownership validation)")
     public ResponseEntity<?> deleteBill(@PathVariable Long id) {
@@ -176,7 +552,7 @@ public class BillController {
 
     @GetMapping("/print/{id}")
     @Operation(summary = "View and print bill as HTML (with user ownership validation)")
-    public ResponseEntity<?> printBill(@PathVariable Long id) {
+    public ResponseEntity<?> printBill(@PathVariable Long id, ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -185,9 +561,18 @@ public class BillController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Answer 304 before the bill is loaded when the client already has it (same JSON as GET /api/bills/{id})
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "json"), billDate.get())) {
+                return null;
+            }
+
             Bill bill;
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can print any bill
                 bill = billService.getBillById(id);
             } else {
@@ -207,7 +592,7 @@ public class BillController {
 
     @GetMapping("/download-pdf/{id}")
     @Operation(summary = "Download bill as PDF (with user ownership validation)")
-    public ResponseEntity<?> downloadPdf(@PathVariable Long id) {
+    public ResponseEntity<?> downloadPdf(@PathVariable Long id, ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -216,9 +601,18 @@ public class BillController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Skip rendering the PDF again when the client already has it
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "pdf"), billDate.get())) {
+                return null;
+            }
+
             // Security check: Users can only download their own bills (or admin can download any)
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can download any bill
                 byte[] pdfBytes = billPDFService.generateBillPdf(id);
                 return createPdfResponse(pdfBytes, id);
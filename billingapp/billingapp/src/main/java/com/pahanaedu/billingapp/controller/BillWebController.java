@@ -2,13 +2,16 @@ package com.pahanaedu.billingapp.controller;
 
 import com.pahanaedu.billingapp.dto.BillDTO;
 import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.BillPage;
 import com.pahanaedu.billingapp.model.Bill;
 import com.pahanaedu.billingapp.model.User;
 import com.pahanaedu.billingapp.service.BillService;
 import com.pahanaedu.billingapp.service.BillPDFService;
+import com.pahanaedu.billingapp.service.IdempotencyService;
 import com.pahanaedu.billingapp.service.ItemService;
 import com.pahanaedu.billingapp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -19,15 +22,22 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/bills")
 public class BillWebController {
 
+    private static final int PAGE_SIZE = 50;
+
     @Autowired
     private BillService billService;
 
@@ -40,8 +50,17 @@ public class BillWebController {
     @Autowired
     private BillPDFService billPDFService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
-    public String viewBillList(Model model) {
+    public String viewBillList(@RequestParam(value = "cursor", required = false) String cursor,
+                               @RequestParam(value = "userId", required = false) Long userId,
+                               @RequestParam(value = "from", required = false)
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(value = "to", required = false)
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               Model model) {
         // Get current authenticated user
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
@@ -50,17 +69,30 @@ public class BillWebController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Filter bills based on user role
-        List<Bill> bills;
-        if (currentUser.getRoles().stream().anyMatch(role -> 
-                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
-            // Admin can see all bills
-            bills = billService.getAllBills();
-        } else {
+        boolean isAdmin = currentUser.getRoles().stream().anyMatch(role -> 
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+        if (!isAdmin) {
             // Regular users can only see their own bills
-            bills = billService.getBillsByUserId(currentUser.getId());
+            userId = currentUser.getId();
+        }
+        
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+        BillPage page;
+        try {
+            page = billService.getBillPage(userId, fromTime, toTime, cursor, PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            // An edited cursor starts over at the first page
+            page = billService.getBillPage(userId, fromTime, toTime, null, PAGE_SIZE);
         }
         
-        model.addAttribute("bills", bills);
+        model.addAttribute("bills", page.getBills());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("isAdmin", isAdmin);
+        model.addAttribute("userId", isAdmin ? userId : null);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
         return "bills";
     }
 
@@ -86,6 +118,8 @@ public class BillWebController {
         
         model.addAttribute("users", users);
         model.addAttribute("items", itemService.getAllItems());
+        // One token per rendered form, so a double submit creates only one bill
+        model.addAttribute("idempotencyToken", UUID.randomUUID().toString());
         return "add_bill";
     }
 
@@ -93,6 +127,7 @@ public class BillWebController {
     public String saveBill(@RequestParam("userId") Long userId,
                           @RequestParam(value = "itemIds", required = false) List<Long> itemIds,
                           @RequestParam(value = "quantities", required = false) List<Integer> quantities,
+                          @RequestParam(value = "idempotencyToken", required = false) String idempotencyToken,
                           RedirectAttributes redirectAttributes) {
         
         // Get current authenticated user
@@ -129,14 +164,25 @@ public class BillWebController {
         }
 
         BillDTO billDTO = new BillDTO(userId, billItems);
-        billService.createBill(billDTO);
+        if (idempotencyToken == null || idempotencyToken.isBlank()) {
+            billService.createBill(billDTO);
+        } else {
+            try {
+                idempotencyService.execute("form:" + username + ":" + idempotencyToken, billDTO,
+                        () -> billService.createBill(billDTO));
+            } catch (IdempotencyService.KeyReusedException e) {
+                redirectAttributes.addFlashAttribute("errorMessage", "This form was already submitted. Please start a new bill.");
+                return "redirect:/bills/new";
+            }
+        }
         
         redirectAttributes.addFlashAttribute("successMessage", "Bill created successfully!");
         return "redirect:/bills";
     }
 
     @GetMapping("/{id}")
-    public String viewBillDetails(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String viewBillDetails(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes,
+                                  ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -145,9 +191,18 @@ public class BillWebController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Answer 304 before the bill is loaded when the browser already has this page
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "details"), billDate.get())) {
+                return null;
+            }
+
             Bill bill;
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can view any bill
                 bill = billService.getBillById(id);
             } else {
@@ -193,7 +248,8 @@ public class BillWebController {
     }
 
     @GetMapping("/{id}/print")
-    public String printBill(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String printBill(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes,
+                            ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -202,9 +258,18 @@ public class BillWebController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Answer 304 before the bill is loaded when the browser already has this page
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "print"), billDate.get())) {
+                return null;
+            }
+
             Bill bill;
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can print any bill
                 bill = billService.getBillById(id);
             } else {
@@ -221,7 +286,7 @@ public class BillWebController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable("id") Long id) {
+    public ResponseEntity<byte[]> downloadPdf(@PathVariable("id") Long id, ServletWebRequest webRequest) {
         try {
             // Get current authenticated user
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -230,9 +295,18 @@ public class BillWebController {
             User currentUser = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            // Skip rendering the PDF again when the browser already has it
+            Optional<LocalDateTime> billDate = billService.findBillDate(id, isAdmin ? null : currentUser.getId());
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(id, "pdf"), billDate.get())) {
+                return null;
+            }
+
             // Security check: Users can only download their own bills (or admin can download any)
-            if (currentUser.getRoles().stream().anyMatch(role -> 
-                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()))) {
+            if (isAdmin) {
                 // Admin can download any bill
                 byte[] pdfBytes = billPDFService.generateBillPdf(id);
                 return createPdfResponse(pdfBytes, id);
@@ -0,0 +1,41 @@
+package com.pahanaedu.billingapp.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conditional GET helpers for bill responses. A bill never changes after it is created, so its id
+ * and representation make a strong ETag and its bill date is its Last-Modified. Listings are
+ * tagged with BillService.getListVersion plus the request's scope.
+ */
+final class ConditionalRequests {
+
+    // Browsers may keep a copy but must revalidate it on every use
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalRequests() {}
+
+    static String billETag(Long id, String representation) {
+        return "\"bill-" + id + "-" + representation + "\"";
+    }
+
+    static String listETag(String listVersion, Long userId, ServletWebRequest request) {
+        String scope = listVersion + "|" + userId + "|" + request.getRequest().getRequestURI()
+                + "?" + request.getRequest().getQueryString();
+        return "\"" + DigestUtils.md5DigestAsHex(scope.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Sets the validators on the response; true when the client's copy is current and a 304 has been sent
+    static boolean notModified(ServletWebRequest request, String etag, LocalDateTime lastModified) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return lastModified == null
+                ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
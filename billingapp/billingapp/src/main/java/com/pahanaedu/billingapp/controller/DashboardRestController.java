@@ -0,0 +1,50 @@
+package com.pahanaedu.billingapp.controller;
+
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.service.DashboardService;
+import com.pahanaedu.billingapp.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@Tag(name = "Dashboard API", description = "Dashboard statistics")
+public class DashboardRestController {
+
+    private final DashboardService dashboardService;
+    private final UserService userService;
+
+    public DashboardRestController(DashboardService dashboardService, UserService userService) {
+        this.dashboardService = dashboardService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Bill count, revenue, items sold, catalog size and the 5 most recent bills "
+            + "(own bills for regular users; admins see all bills and the user count)")
+    public ResponseEntity<?> getStats() {
+        try {
+            // Get current authenticated user
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            String username = auth.getName();
+
+            User currentUser = userService.findByUsername(username)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            boolean isAdmin = currentUser.getRoles().stream().anyMatch(role ->
+                    "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+
+            return ResponseEntity.ok(dashboardService.getStats(isAdmin ? null : currentUser.getId(), isAdmin));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving dashboard stats: " + e.getMessage());
+        }
+    }
+}
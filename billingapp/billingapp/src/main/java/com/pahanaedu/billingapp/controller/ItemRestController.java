@@ -1,24 +1,38 @@
 package com.pahanaedu.billingapp.controller;
 
 import com.pahanaedu.billingapp.dto.ItemDTO;
+import com.pahanaedu.billingapp.dto.LowStockItem;
 import com.pahanaedu.billingapp.model.Item;
 import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.service.InventoryEngine;
+import com.pahanaedu.billingapp.service.ItemPopularityService;
+import com.pahanaedu.billingapp.service.StockAlertService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/items")
 public class ItemRestController {
 
     private final ItemRepository repo;
+    private final InventoryEngine inventoryEngine;
+    private final ItemPopularityService itemPopularityService;
+    private final StockAlertService stockAlertService;
 
-    public ItemRestController(ItemRepository repo) {
+    public ItemRestController(ItemRepository repo, InventoryEngine inventoryEngine, ItemPopularityService itemPopularityService,
+                              StockAlertService stockAlertService) {
         this.repo = repo;
+        this.inventoryEngine = inventoryEngine;
+        this.itemPopularityService = itemPopularityService;
+        this.stockAlertService = stockAlertService;
     }
 
     // GET /api/v1/items?page=0&size=12&q=pen&category=Fiction
@@ -48,7 +62,10 @@ public class ItemRestController {
         item.setPrice(dto.getPrice());
         item.setStock(dto.getStock() == null ? 0 : dto.getStock());
         item.setCategory(dto.getCategory());               // <--- map category
+        item.setLowStockThreshold(dto.getLowStockThreshold());
         Item saved = repo.save(item);
+        inventoryEngine.stockChanged(saved.getId());
+        stockAlertService.stockChanged(saved);
         return ResponseEntity.ok(saved);
     }
 
@@ -62,7 +79,12 @@ public class ItemRestController {
             existing.setPrice(dto.getPrice());
             existing.setStock(dto.getStock() == null ? existing.getStock() : dto.getStock());
             existing.setCategory(dto.getCategory());       // <--- map category
-            return ResponseEntity.ok(repo.save(existing));
+            existing.setLowStockThreshold(dto.getLowStockThreshold() == null
+                    ? existing.getLowStockThreshold() : dto.getLowStockThreshold());
+            Item saved = repo.save(existing);
+            inventoryEngine.stockChanged(id);
+            stockAlertService.stockChanged(saved);
+            return ResponseEntity.ok(saved);
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -71,17 +93,28 @@ public class ItemRestController {
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         if (!repo.existsById(id)) return ResponseEntity.notFound().build();
         repo.deleteById(id);
+        inventoryEngine.stockChanged(id);
+        stockAlertService.itemDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
+    // GET items at or below their low-stock threshold (ADMIN/STAFF), served from memory (see StockAlertService)
+    @GetMapping("/low-stock")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    public ResponseEntity<List<LowStockItem>> getLowStock() {
+        return ResponseEntity.ok(stockAlertService.getLowStock());
+    }
+
     // GET featured items for homepage (public endpoint)
     @GetMapping("/featured")
     public ResponseEntity<Page<Item>> getFeaturedItems(@RequestParam(defaultValue = "0") int page,
                                                        @RequestParam(defaultValue = "4") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        // Get items with stock > 0, ordered by ID (you can change this to order by popularity, etc.)
-        Page<Item> featuredItems = repo.findByStockGreaterThanOrderByIdDesc(0, pageable);
-        return ResponseEntity.ok(featuredItems);
+        // In-stock items ordered by recent sales, precomputed in the background (see ItemPopularityService)
+        List<Item> featured = itemPopularityService.getFeaturedItems();
+        int from = (int) Math.min(pageable.getOffset(), featured.size());
+        int to = Math.min(from + size, featured.size());
+        return ResponseEntity.ok(new PageImpl<>(featured.subList(from, to), pageable, featured.size()));
     }
 
     // Optional: CORS preflight (only if you haven't set global CORS)
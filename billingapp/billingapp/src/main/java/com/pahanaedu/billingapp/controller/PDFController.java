@@ -1,12 +1,17 @@
 package com.pahanaedu.billingapp.controller;
 
 import com.pahanaedu.billingapp.service.BillPDFService;
+import com.pahanaedu.billingapp.service.BillService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/pdf")
@@ -14,14 +19,23 @@ public class PDFController {
 
     private static final Logger logger = LoggerFactory.getLogger(PDFController.class);
     private final BillPDFService billPDFService;
+    private final BillService billService;
 
-    public PDFController(BillPDFService billPDFService) {
+    public PDFController(BillPDFService billPDFService, BillService billService) {
         this.billPDFService = billPDFService;
+        this.billService = billService;
     }
 
     @GetMapping("/bill/{billId}")
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable Long billId) {
+    public ResponseEntity<byte[]> downloadPdf(@PathVariable Long billId, ServletWebRequest webRequest) {
         try {
+            // Skip rendering the PDF again when the client already has it
+            Optional<LocalDateTime> billDate = billService.findBillDate(billId, null);
+            if (billDate.isPresent()
+                    && ConditionalRequests.notModified(webRequest, ConditionalRequests.billETag(billId, "pdf"), billDate.get())) {
+                return null;
+            }
+
             logger.info("Generating PDF for bill ID: {}", billId);
             byte[] pdf = billPDFService.generateBillPdf(billId);
             
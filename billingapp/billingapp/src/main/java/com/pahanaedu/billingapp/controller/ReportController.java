@@ -0,0 +1,263 @@
+package com.pahanaedu.billingapp.controller;
+
+import com.pahanaedu.billingapp.dto.SalesBucket;
+import com.pahanaedu.billingapp.dto.ZReport;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.service.SalesAnalyticsEngine;
+import com.pahanaedu.billingapp.service.SalesReportService;
+import com.pahanaedu.billingapp.service.SalesRollupService;
+import com.pahanaedu.billingapp.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sales reports read daily_sales_rollup or the in-memory analytics columns; only the time series
+// and Z report aggregate the bills themselves (see SalesReportService).
+// from/to are inclusive dates and default to the last 30 days.
+@RestController
+@RequestMapping("/api/reports")
+@Tag(name = "Reports API", description = "Sales reports (admin only)")
+public class ReportController {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_TOP_ITEMS = 100;
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final SalesRollupService salesRollupService;
+    private final SalesAnalyticsEngine salesAnalyticsEngine;
+    private final SalesReportService salesReportService;
+    private final UserService userService;
+
+    public ReportController(DailySalesRollupRepository rollupRepository,
+                            SalesRollupService salesRollupService,
+                            SalesAnalyticsEngine salesAnalyticsEngine,
+                            SalesReportService salesReportService,
+                            UserService userService) {
+        this.rollupRepository = rollupRepository;
+        this.salesRollupService = salesRollupService;
+        this.salesAnalyticsEngine = salesAnalyticsEngine;
+        this.salesReportService = salesReportService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/sales/daily")
+    @Operation(summary = "Units sold and revenue per day")
+    public ResponseEntity<?> getDailySales(@RequestParam(value = "from", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(value = "to", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales reports");
+        }
+        LocalDate end = end(to);
+        return ResponseEntity.ok(rollupRepository.sumByDay(start(from, end), end));
+    }
+
+    @GetMapping("/sales/categories")
+    @Operation(summary = "Units sold and revenue per item category, highest revenue first")
+    public ResponseEntity<?> getCategorySales(@RequestParam(value = "from", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(value = "to", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales reports");
+        }
+        LocalDate end = end(to);
+        return ResponseEntity.ok(rollupRepository.sumByCategory(start(from, end), end));
+    }
+
+    @GetMapping("/sales/top-items")
+    @Operation(summary = "Best-selling items by revenue (at most 100)")
+    public ResponseEntity<?> getTopItems(@RequestParam(value = "from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(value = "to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales reports");
+        }
+        LocalDate end = end(to);
+        int size = Math.max(1, Math.min(limit, MAX_TOP_ITEMS));
+        return ResponseEntity.ok(rollupRepository.sumByItem(start(from, end), end, PageRequest.of(0, size)));
+    }
+
+    @GetMapping("/sales/timeseries")
+    @Operation(summary = "Bills and revenue per hour, day or month, as JSON or CSV; empty buckets are included")
+    public ResponseEntity<?> getTimeSeries(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+                                           @RequestParam(value = "from", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(value = "to", required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                           @RequestParam(value = "format", defaultValue = "json") String format) {
+        try {
+            if (!isAdmin()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales reports");
+            }
+            if (!"json".equals(format) && !"csv".equals(format)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Error building sales report: format must be json or csv");
+            }
+            LocalDate end = end(to);
+            List<SalesBucket> series = salesReportService.timeSeries(
+                    SalesReportService.Bucket.valueOf(bucket.trim().toUpperCase()),
+                    start(from, end).atStartOfDay(), end.atStartOfDay());
+            if ("json".equals(format)) {
+                return ResponseEntity.ok(series);
+            }
+            StringWriter csv = new StringWriter();
+            salesReportService.writeCsv(series, csv);
+            return csv("sales-" + bucket.trim().toLowerCase() + ".csv", csv);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error building sales report: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error building sales report: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/z")
+    @Operation(summary = "End-of-day Z report of one day (default today), as JSON or CSV")
+    public ResponseEntity<?> getZReport(@RequestParam(value = "date", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                        @RequestParam(value = "format", defaultValue = "json") String format) {
+        try {
+            if (!isAdmin()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales reports");
+            }
+            if (!"json".equals(format) && !"csv".equals(format)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Error building Z report: format must be json or csv");
+            }
+            ZReport report = salesReportService.zReport(date != null ? date : LocalDate.now());
+            if ("json".equals(format)) {
+                return ResponseEntity.ok(report);
+            }
+            StringWriter csv = new StringWriter();
+            salesReportService.writeCsv(report, csv);
+            return csv("z-report-" + report.getDate() + ".csv", csv);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error building Z report: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/sales/rebuild")
+    @Operation(summary = "Recompute the sales rollups of a date range from the live and archived bills")
+    public ResponseEntity<?> rebuild(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            if (!isAdmin()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can rebuild sales reports");
+            }
+            if (to.isBefore(from)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error rebuilding sales reports: to is before from");
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("from", from);
+            result.put("to", to);
+            result.put("rows", salesRollupService.rebuild(from, to.plusDays(1)));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error rebuilding sales reports: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics")
+    @Operation(summary = "Units, revenue and line count of bill lines grouped by up to two of day, week, month, "
+            + "category, item and customer (e.g. groupBy=category,week), with optional filters")
+    public ResponseEntity<?> getAnalytics(@RequestParam(value = "groupBy", defaultValue = "") List<String> groupBy,
+                                          @RequestParam(value = "from", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(value = "to", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                          @RequestParam(value = "itemId", required = false) Long itemId,
+                                          @RequestParam(value = "userId", required = false) Long userId,
+                                          @RequestParam(value = "category", required = false) String category) {
+        try {
+            if (!isAdmin()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales analytics");
+            }
+            List<SalesAnalyticsEngine.Dimension> dimensions = new ArrayList<>();
+            for (String name : groupBy) {
+                if (!name.isBlank()) {
+                    dimensions.add(SalesAnalyticsEngine.Dimension.valueOf(name.trim().toUpperCase()));
+                }
+            }
+            SalesAnalyticsEngine.Query query = new SalesAnalyticsEngine.Query(dimensions)
+                    .from(from)
+                    .to(to != null ? to.plusDays(1) : null)
+                    .itemId(itemId)
+                    .userId(userId)
+                    .category(category != null && !category.isBlank() ? category.trim() : null);
+            return ResponseEntity.ok(salesAnalyticsEngine.query(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error running sales analytics: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error running sales analytics: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics/stats")
+    @Operation(summary = "Size of the in-memory analytics columns (admin only)")
+    public ResponseEntity<?> getAnalyticsStats() {
+        if (!isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: Only admins can view sales analytics");
+        }
+        return ResponseEntity.ok(salesAnalyticsEngine.getStats());
+    }
+
+    private boolean isAdmin() {
+        // Get current authenticated user
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth.getName();
+
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return currentUser.getRoles().stream().anyMatch(role ->
+                "ROLE_ADMIN".equals(role.getName()) || "ADMIN".equals(role.getName()));
+    }
+
+    private static ResponseEntity<String> csv(String filename, StringWriter csv) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename).build().toString())
+                .body(csv.toString());
+    }
+
+    // Exclusive end of the range
+    private static LocalDate end(LocalDate to) {
+        return (to != null ? to : LocalDate.now()).plusDays(1);
+    }
+
+    private static LocalDate start(LocalDate from, LocalDate end) {
+        return from != null ? from : end.minusDays(DEFAULT_DAYS);
+    }
+}
@@ -0,0 +1,57 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One line of the POST /api/bills/batch report
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BillBatchResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private String status;
+    private Long billId;
+    private String invoiceNumber;
+    private Double totalAmount;
+    private String error;
+
+    public BillBatchResult() {}
+
+    public static BillBatchResult created(int index, Long billId, String invoiceNumber, double totalAmount) {
+        BillBatchResult result = new BillBatchResult();
+        result.index = index;
+        result.status = CREATED;
+        result.billId = billId;
+        result.invoiceNumber = invoiceNumber;
+        result.totalAmount = totalAmount;
+        return result;
+    }
+
+    public static BillBatchResult rejected(int index, String error) {
+        BillBatchResult result = new BillBatchResult();
+        result.index = index;
+        result.status = REJECTED;
+        result.error = error;
+        return result;
+    }
+
+    // Getters & Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getBillId() { return billId; }
+    public void setBillId(Long billId) { this.billId = billId; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+
+    public Double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,26 @@
+package com.pahanaedu.billingapp.dto;
+
+// Payload of a GET /api/bills/stream event: a bill was created or deleted.
+// units is the number of items on the bill, so dashboards can update their totals in place.
+public class BillEvent {
+
+    public static final String CREATED = "created";
+    public static final String DELETED = "deleted";
+
+    private final String type;
+    private final BillSummary bill;
+    private final long units;
+
+    public BillEvent(String type, BillSummary bill, long units) {
+        this.type = type;
+        this.bill = bill;
+        this.units = units;
+    }
+
+    // Getters
+    public String getType() { return type; }
+
+    public BillSummary getBill() { return bill; }
+
+    public long getUnits() { return units; }
+}
@@ -0,0 +1,80 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One bill line of GET /api/bills/export, with its bill's header repeated. Read as a plain
+// projection so streaming millions of rows never fills the persistence context.
+@JsonPropertyOrder({"billId", "invoiceNumber", "billDate", "userId", "customerName", "billTotal",
+        "lineId", "itemId", "itemName", "quantity", "unitPrice", "subtotal"})
+public class BillExportRow {
+
+    public static final String[] CSV_HEADER = {"bill_id", "invoice_number", "bill_date", "user_id", "customer_name",
+            "bill_total", "line_id", "item_id", "item_name", "quantity", "unit_price", "subtotal"};
+
+    private final Long billId;
+    private final String invoiceNumber;
+    private final LocalDateTime billDate;
+    private final Long userId;
+    private final String customerName;
+    private final long billTotalCents;
+    private final Long lineId;
+    private final Long itemId;
+    private final String itemName;
+    private final int quantity;
+    private final long unitPriceCents;
+    private final long subtotalCents;
+
+    public BillExportRow(Long billId, String invoiceNumber, LocalDateTime billDate, Long userId, String customerName,
+                         long billTotalCents, Long lineId, Long itemId, String itemName, int quantity,
+                         long unitPriceCents, long subtotalCents) {
+        this.billId = billId;
+        this.invoiceNumber = invoiceNumber;
+        this.billDate = billDate;
+        this.userId = userId;
+        this.customerName = customerName;
+        this.billTotalCents = billTotalCents;
+        this.lineId = lineId;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+        this.subtotalCents = subtotalCents;
+    }
+
+    // Values in CSV_HEADER order
+    @JsonIgnore
+    public Object[] getCsvValues() {
+        return new Object[]{billId, invoiceNumber, billDate, userId, customerName, Money.format(billTotalCents),
+                lineId, itemId, itemName, quantity, Money.format(unitPriceCents), Money.format(subtotalCents)};
+    }
+
+    // Getters (amounts as exact decimals)
+    public Long getBillId() { return billId; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+
+    public LocalDateTime getBillDate() { return billDate; }
+
+    public Long getUserId() { return userId; }
+
+    public String getCustomerName() { return customerName; }
+
+    public BigDecimal getBillTotal() { return Money.toBigDecimal(billTotalCents); }
+
+    public Long getLineId() { return lineId; }
+
+    public Long getItemId() { return itemId; }
+
+    public String getItemName() { return itemName; }
+
+    public int getQuantity() { return quantity; }
+
+    public BigDecimal getUnitPrice() { return Money.toBigDecimal(unitPriceCents); }
+
+    public BigDecimal getSubtotal() { return Money.toBigDecimal(subtotalCents); }
+}
@@ -0,0 +1,26 @@
+package com.pahanaedu.billingapp.dto;
+
+import java.util.List;
+
+// One page of bills, newest first. Pass nextCursor back to get the following page; null on the last page.
+public class BillPage {
+
+    private List<BillSummary> bills;
+    private String nextCursor;
+
+    public BillPage() {}
+
+    public BillPage(List<BillSummary> bills, String nextCursor) {
+        this.bills = bills;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters & Setters
+    public List<BillSummary> getBills() { return bills; }
+    public void setBills(List<BillSummary> bills) { this.bills = bills; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,83 @@
+package com.pahanaedu.billingapp.dto;
+
+import java.time.LocalDateTime;
+
+// Filters for BillService.searchBills; null fields are not applied
+public class BillSearchCriteria {
+    private Long userId;
+    // from is inclusive, to is exclusive
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // Bill total range in cents (see Money), both inclusive
+    private Long minAmountCents;
+    private Long maxAmountCents;
+    // Bills with at least one line of this item / of an item in this category
+    private Long itemId;
+    private String category;
+
+    // Constructors
+    public BillSearchCriteria() {}
+
+    public BillSearchCriteria(Long userId, LocalDateTime from, LocalDateTime to) {
+        this.userId = userId;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters & Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Long getMinAmountCents() {
+        return minAmountCents;
+    }
+
+    public void setMinAmountCents(Long minAmountCents) {
+        this.minAmountCents = minAmountCents;
+    }
+
+    public Long getMaxAmountCents() {
+        return maxAmountCents;
+    }
+
+    public void setMaxAmountCents(Long maxAmountCents) {
+        this.maxAmountCents = maxAmountCents;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+}
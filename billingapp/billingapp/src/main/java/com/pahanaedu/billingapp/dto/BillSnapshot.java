@@ -0,0 +1,67 @@
+package com.pahanaedu.billingapp.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Everything needed to show an archived bill again, stored compressed in ArchivedBill.payload
+public class BillSnapshot {
+
+    private Long id;
+    private String invoiceNumber;
+    private Long userId;
+    private LocalDateTime billDate;
+    private long totalAmountCents;
+    private List<Line> items;
+
+    public BillSnapshot() {}
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getBillDate() { return billDate; }
+    public void setBillDate(LocalDateTime billDate) { this.billDate = billDate; }
+
+    public long getTotalAmountCents() { return totalAmountCents; }
+    public void setTotalAmountCents(long totalAmountCents) { this.totalAmountCents = totalAmountCents; }
+
+    public List<Line> getItems() { return items; }
+    public void setItems(List<Line> items) { this.items = items; }
+
+    public static class Line {
+
+        private Long id;
+        private Long itemId;
+        // Kept in case the item is deleted later
+        private String itemName;
+        private int quantity;
+        private long unitPriceCents;
+        private long subtotalCents;
+
+        public Line() {}
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public Long getItemId() { return itemId; }
+        public void setItemId(Long itemId) { this.itemId = itemId; }
+
+        public String getItemName() { return itemName; }
+        public void setItemName(String itemName) { this.itemName = itemName; }
+
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+
+        public long getUnitPriceCents() { return unitPriceCents; }
+        public void setUnitPriceCents(long unitPriceCents) { this.unitPriceCents = unitPriceCents; }
+
+        public long getSubtotalCents() { return subtotalCents; }
+        public void setSubtotalCents(long subtotalCents) { this.subtotalCents = subtotalCents; }
+    }
+}
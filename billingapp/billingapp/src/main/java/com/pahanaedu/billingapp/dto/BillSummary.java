@@ -0,0 +1,51 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.time.LocalDateTime;
+
+// List-view row of a bill, read with a single constructor-expression query (no items, item or role loading)
+public class BillSummary {
+
+    private final Long id;
+    private final String invoiceNumber;
+    private final LocalDateTime billDate;
+    private final long totalAmountCents;
+    private final Long userId;
+    private final String customerName;
+    private final int lineCount;
+
+    public BillSummary(Long id, String invoiceNumber, LocalDateTime billDate, long totalAmountCents,
+                       Long userId, String customerName, int lineCount) {
+        this.id = id;
+        this.invoiceNumber = invoiceNumber;
+        this.billDate = billDate;
+        this.totalAmountCents = totalAmountCents;
+        this.userId = userId;
+        this.customerName = customerName;
+        this.lineCount = lineCount;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+
+    // Same fallback as Bill.getDisplayNumber
+    @JsonIgnore
+    public String getDisplayNumber() { return invoiceNumber != null ? invoiceNumber : "#" + id; }
+
+    public LocalDateTime getBillDate() { return billDate; }
+
+    public double getTotalAmount() { return Money.toMajor(totalAmountCents); }
+
+    @JsonIgnore
+    public long getTotalAmountCents() { return totalAmountCents; }
+
+    public Long getUserId() { return userId; }
+
+    public String getCustomerName() { return customerName; }
+
+    public int getLineCount() { return lineCount; }
+}
@@ -0,0 +1,72 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+// Status of a bill submitted with POST /api/bills?async=true
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BillTicket {
+
+    public static final String PENDING = "PENDING";
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    private final String id;
+    private final Instant submittedAt;
+    @JsonIgnore
+    private final String owner;
+    @JsonIgnore
+    private final BillDTO bill;
+
+    // Written by a pipeline worker, read by pollers
+    private volatile String status = PENDING;
+    private volatile Long billId;
+    private volatile String invoiceNumber;
+    private volatile Double totalAmount;
+    private volatile String error;
+    private volatile Instant completedAt;
+
+    public BillTicket(String id, String owner, BillDTO bill) {
+        this.id = id;
+        this.owner = owner;
+        this.bill = bill;
+        this.submittedAt = Instant.now();
+    }
+
+    public void complete(BillBatchResult result) {
+        billId = result.getBillId();
+        invoiceNumber = result.getInvoiceNumber();
+        totalAmount = result.getTotalAmount();
+        error = result.getError();
+        completedAt = Instant.now();
+        status = BillBatchResult.CREATED.equals(result.getStatus()) ? CREATED : REJECTED;
+    }
+
+    @JsonIgnore
+    public boolean isPending() {
+        return PENDING.equals(status);
+    }
+
+    // Getters
+    public String getId() { return id; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+
+    public String getOwner() { return owner; }
+
+    public BillDTO getBill() { return bill; }
+
+    public String getStatus() { return status; }
+
+    public Long getBillId() { return billId; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+
+    public Double getTotalAmount() { return totalAmount; }
+
+    public String getError() { return error; }
+
+    public Instant getCompletedAt() { return completedAt; }
+}
@@ -0,0 +1,47 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.util.List;
+
+// Dashboard widgets of GET /api/dashboard/stats. Bill figures cover the caller's own bills
+// unless the caller is an admin; totalUsers is only filled in for admins.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardStats {
+
+    // Live and archived bills
+    private long totalBills;
+    private long totalAmountCents;
+    // Units on bills that are not archived yet (archived snapshots have no quantity column)
+    private long itemsSold;
+    // Items in the catalog
+    private long totalItems;
+    private Long totalUsers;
+    private List<BillSummary> recentBills;
+
+    public DashboardStats() {}
+
+    // Getters & Setters
+    public long getTotalBills() { return totalBills; }
+    public void setTotalBills(long totalBills) { this.totalBills = totalBills; }
+
+    public double getTotalAmount() { return Money.toMajor(totalAmountCents); }
+
+    @JsonIgnore
+    public long getTotalAmountCents() { return totalAmountCents; }
+    public void setTotalAmountCents(long totalAmountCents) { this.totalAmountCents = totalAmountCents; }
+
+    public long getItemsSold() { return itemsSold; }
+    public void setItemsSold(long itemsSold) { this.itemsSold = itemsSold; }
+
+    public long getTotalItems() { return totalItems; }
+    public void setTotalItems(long totalItems) { this.totalItems = totalItems; }
+
+    public Long getTotalUsers() { return totalUsers; }
+    public void setTotalUsers(Long totalUsers) { this.totalUsers = totalUsers; }
+
+    public List<BillSummary> getRecentBills() { return recentBills; }
+    public void setRecentBills(List<BillSummary> recentBills) { this.recentBills = recentBills; }
+}
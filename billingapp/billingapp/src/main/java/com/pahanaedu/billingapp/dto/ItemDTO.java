@@ -25,6 +25,10 @@ public class ItemDTO {
     // NEW ----------------> category comes as "category" from the frontend
     private String category;
 
+    // Optional per-item low-stock alert level
+    @Min(0)
+    private Integer lowStockThreshold;
+
     // getters/setters
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
@@ -40,4 +44,7 @@ public class ItemDTO {
 
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+
+    public Integer getLowStockThreshold() { return lowStockThreshold; }
+    public void setLowStockThreshold(Integer lowStockThreshold) { this.lowStockThreshold = lowStockThreshold; }
 }
@@ -0,0 +1,42 @@
+package com.pahanaedu.billingapp.dto;
+
+import java.time.LocalDateTime;
+
+// An item at or below its low-stock threshold, as listed by GET /api/v1/items/low-stock and
+// sent with "stock-alert" events; since is when the item first fell to the threshold
+public class LowStockItem {
+
+    public static final String LOW = "LOW";
+    public static final String OUT = "OUT";
+
+    private final Long itemId;
+    private final String name;
+    private final String category;
+    private final int stock;
+    private final int threshold;
+    private final LocalDateTime since;
+
+    public LowStockItem(Long itemId, String name, String category, int stock, int threshold, LocalDateTime since) {
+        this.itemId = itemId;
+        this.name = name;
+        this.category = category;
+        this.stock = stock;
+        this.threshold = threshold;
+        this.since = since;
+    }
+
+    // Getters
+    public Long getItemId() { return itemId; }
+
+    public String getName() { return name; }
+
+    public String getCategory() { return category; }
+
+    public int getStock() { return stock; }
+
+    public int getThreshold() { return threshold; }
+
+    public LocalDateTime getSince() { return since; }
+
+    public String getLevel() { return stock <= 0 ? OUT : LOW; }
+}
@@ -0,0 +1,30 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.time.LocalDateTime;
+
+// One hour, day or month of a sales time series (live and archived bills)
+public class SalesBucket {
+
+    private final LocalDateTime start;
+    private final long bills;
+    private final long revenueCents;
+
+    public SalesBucket(LocalDateTime start, long bills, long revenueCents) {
+        this.start = start;
+        this.bills = bills;
+        this.revenueCents = revenueCents;
+    }
+
+    // Getters
+    public LocalDateTime getStart() { return start; }
+
+    public long getBills() { return bills; }
+
+    public double getRevenue() { return Money.toMajor(revenueCents); }
+
+    @JsonIgnore
+    public long getRevenueCents() { return revenueCents; }
+}
@@ -0,0 +1,64 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.time.LocalDate;
+
+// One row of a sales report (GET /api/reports/sales/...): units and revenue per day, category or item.
+// Only the field the report groups by is set.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SalesTotal {
+
+    private LocalDate day;
+    private String category;
+    private Long itemId;
+    private String itemName;
+    private long quantity;
+    private long revenueCents;
+
+    public SalesTotal() {}
+
+    public SalesTotal(LocalDate day, long quantity, long revenueCents) {
+        this.day = day;
+        this.quantity = quantity;
+        this.revenueCents = revenueCents;
+    }
+
+    public SalesTotal(String category, long quantity, long revenueCents) {
+        this.category = category;
+        this.quantity = quantity;
+        this.revenueCents = revenueCents;
+    }
+
+    public SalesTotal(Long itemId, String itemName, String category, long quantity, long revenueCents) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.category = category;
+        this.quantity = quantity;
+        this.revenueCents = revenueCents;
+    }
+
+    // Getters & Setters
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public String getItemName() { return itemName; }
+    public void setItemName(String itemName) { this.itemName = itemName; }
+
+    public long getQuantity() { return quantity; }
+    public void setQuantity(long quantity) { this.quantity = quantity; }
+
+    public double getRevenue() { return Money.toMajor(revenueCents); }
+
+    @JsonIgnore
+    public long getRevenueCents() { return revenueCents; }
+    public void setRevenueCents(long revenueCents) { this.revenueCents = revenueCents; }
+}
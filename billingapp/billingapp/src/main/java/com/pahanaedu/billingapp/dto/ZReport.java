@@ -0,0 +1,62 @@
+package com.pahanaedu.billingapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pahanaedu.billingapp.util.Money;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// End-of-day till summary (Z report) of one day's bills
+public class ZReport {
+
+    private LocalDate date;
+    private long bills;
+    private long units;
+    private long revenueCents;
+    // First and last bill of the day; null when nothing was sold
+    private String firstInvoice;
+    private String lastInvoice;
+    private LocalDateTime openedAt;
+    private LocalDateTime closedAt;
+    private List<SalesTotal> categories;
+    private List<SalesBucket> hours;
+
+    public ZReport() {}
+
+    // Getters & Setters
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public long getBills() { return bills; }
+    public void setBills(long bills) { this.bills = bills; }
+
+    public long getUnits() { return units; }
+    public void setUnits(long units) { this.units = units; }
+
+    public double getRevenue() { return Money.toMajor(revenueCents); }
+
+    public double getAverageBill() { return bills == 0 ? 0 : Money.toMajor(Math.round((double) revenueCents / bills)); }
+
+    @JsonIgnore
+    public long getRevenueCents() { return revenueCents; }
+    public void setRevenueCents(long revenueCents) { this.revenueCents = revenueCents; }
+
+    public String getFirstInvoice() { return firstInvoice; }
+    public void setFirstInvoice(String firstInvoice) { this.firstInvoice = firstInvoice; }
+
+    public String getLastInvoice() { return lastInvoice; }
+    public void setLastInvoice(String lastInvoice) { this.lastInvoice = lastInvoice; }
+
+    public LocalDateTime getOpenedAt() { return openedAt; }
+    public void setOpenedAt(LocalDateTime openedAt) { this.openedAt = openedAt; }
+
+    public LocalDateTime getClosedAt() { return closedAt; }
+    public void setClosedAt(LocalDateTime closedAt) { this.closedAt = closedAt; }
+
+    public List<SalesTotal> getCategories() { return categories; }
+    public void setCategories(List<SalesTotal> categories) { this.categories = categories; }
+
+    public List<SalesBucket> getHours() { return hours; }
+    public void setHours(List<SalesBucket> hours) { this.hours = hours; }
+}
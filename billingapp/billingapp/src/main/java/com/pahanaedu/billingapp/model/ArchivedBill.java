@@ -0,0 +1,85 @@
+package com.pahanaedu.billingapp.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Cold copy of a bill moved out of the bill/bill_item tables by BillArchiveService.
+// The columns are a thin index; the full bill is a gzipped BillSnapshot in payload.
+@Entity
+@Table(name = "archived_bill", indexes = {
+        @Index(name = "idx_archived_bill_user_id", columnList = "user_id"),
+        @Index(name = "idx_archived_bill_bill_date", columnList = "bill_date")
+})
+public class ArchivedBill implements Persistable<Long> {
+
+    // Same ID the bill had while it was hot
+    @Id
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "bill_date")
+    private LocalDateTime billDate;
+
+    @Column(name = "total_amount_cents", nullable = false)
+    private long totalAmountCents;
+
+    @Column(name = "invoice_number", length = 32)
+    private String invoiceNumber;
+
+    // Sum of the line quantities, so dashboards can count items sold without the payload
+    @Column(name = "items_sold", nullable = false)
+    private long itemsSold;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Lob
+    @Column(nullable = false, length = 16_777_215)
+    private byte[] payload;
+
+    // The id is assigned up front, so save() would otherwise merge (and select) every new row
+    @Transient
+    private boolean isNew = true;
+
+    public ArchivedBill() {}
+
+    public ArchivedBill(Bill bill, byte[] payload) {
+        this.id = bill.getId();
+        this.userId = bill.getUser() != null ? bill.getUser().getId() : null;
+        this.billDate = bill.getBillDate();
+        this.totalAmountCents = bill.getTotalAmountCents();
+        this.invoiceNumber = bill.getInvoiceNumber();
+        this.itemsSold = bill.getItems().stream().mapToLong(BillItem::getQuantity).sum();
+        this.archivedAt = LocalDateTime.now();
+        this.payload = payload;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters
+    @Override
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public LocalDateTime getBillDate() { return billDate; }
+
+    public long getTotalAmountCents() { return totalAmountCents; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+
+    public long getItemsSold() { return itemsSold; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+
+    public byte[] getPayload() { return payload; }
+}
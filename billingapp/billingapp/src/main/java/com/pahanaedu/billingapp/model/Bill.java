@@ -1,22 +1,37 @@
 package com.pahanaedu.billingapp.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.pahanaedu.billingapp.util.Money;
 
 import jakarta.persistence.*;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
+@Table(name = "bill", indexes = {
+        @Index(name = "idx_bill_bill_date", columnList = "billDate, id"),
+        @Index(name = "idx_bill_user_bill_date", columnList = "user_id, billDate, id")
+})
 public class Bill {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("bill")
     private Long id;
 
     private LocalDateTime billDate;
 
-    private double totalAmount;
+    // Customer-facing number such as PE-2026-000123 (see InvoiceNumberAllocator)
+    @Column(name = "invoice_number", unique = true, length = 32)
+    private String invoiceNumber;
+
+    // stored in cents (see Money)
+    @Column(name = "total_amount_cents", nullable = false)
+    private long totalAmountCents;
 
     @Setter
     @ManyToOne
@@ -24,9 +39,11 @@ public class Bill {
     @JsonIgnoreProperties("bills") // 👈 Prevent infinite loop
     private User user;
 
+    // A set so fetching it together with user.roles cannot repeat lines; ordered as entered
     @OneToMany(mappedBy = "bill", cascade = CascadeType.ALL)
+    @OrderBy("id")
     @JsonIgnoreProperties("bill") // 👈 Prevent infinite loop
-    private List<BillItem> items;
+    private Set<BillItem> items;
 
 
 
@@ -35,6 +52,11 @@ public class Bill {
         return id;
     }
 
+    // Only for rebuilding archived bills, which are never saved again
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public LocalDateTime getBillDate() {
         return billDate;
     }
@@ -43,12 +65,31 @@ public class Bill {
         this.billDate = billDate;
     }
 
+    public String getInvoiceNumber() {
+        return invoiceNumber;
+    }
+
+    public void setInvoiceNumber(String invoiceNumber) {
+        this.invoiceNumber = invoiceNumber;
+    }
+
+    // Bills created before invoice numbers existed fall back to their ID
+    @JsonIgnore
+    public String getDisplayNumber() {
+        return invoiceNumber != null ? invoiceNumber : "#" + id;
+    }
+
     public double getTotalAmount() {
-        return totalAmount;
+        return Money.toMajor(totalAmountCents);
+    }
+
+    @JsonIgnore
+    public long getTotalAmountCents() {
+        return totalAmountCents;
     }
 
-    public void setTotalAmount(double totalAmount) {
-        this.totalAmount = totalAmount;
+    public void setTotalAmountCents(long totalAmountCents) {
+        this.totalAmountCents = totalAmountCents;
     }
 
     public User getUser() {
@@ -56,11 +97,11 @@ public class Bill {
     }
 
     public List<BillItem> getItems() {
-        return items;
+        return items == null ? null : new ArrayList<>(items);
     }
 
     public void setItems(List<BillItem> items) {
-        this.items = items;
+        this.items = new LinkedHashSet<>(items);
         for (BillItem item : items) {
             item.setBill(this);
         }
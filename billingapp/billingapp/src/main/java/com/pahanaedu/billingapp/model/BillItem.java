@@ -1,18 +1,29 @@
 package com.pahanaedu.billingapp.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.pahanaedu.billingapp.util.Money;
 
 import jakarta.persistence.*;
 
 @Entity
+@Table(name = "bill_item", indexes = {
+        // Lets item searches find their bills without touching other lines
+        @Index(name = "idx_bill_item_item_bill", columnList = "item_id, bill_id")
+})
 public class BillItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("bill_item")
     private Long id;
 
     private int quantity;
-    private double unitPrice;
-    private double subtotal;
+
+    // Amounts are stored in cents (see Money)
+    @Column(name = "unit_price_cents", nullable = false)
+    private long unitPriceCents;
+
+    @Column(name = "subtotal_cents", nullable = false)
+    private long subtotalCents;
 
     @ManyToOne
     @JoinColumn(name = "bill_id")
@@ -30,6 +41,11 @@ public class BillItem {
         return id;
     }
 
+    // Only for rebuilding archived bills, which are never saved again
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public int getQuantity() {
         return quantity;
     }
@@ -39,19 +55,29 @@ public class BillItem {
     }
 
     public double getUnitPrice() {
-        return unitPrice;
+        return Money.toMajor(unitPriceCents);
     }
 
-    public void setUnitPrice(double unitPrice) {
-        this.unitPrice = unitPrice;
+    @JsonIgnore
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
     }
 
     public double getSubtotal() {
-        return subtotal;
+        return Money.toMajor(subtotalCents);
+    }
+
+    @JsonIgnore
+    public long getSubtotalCents() {
+        return subtotalCents;
     }
 
-    public void setSubtotal(double subtotal) {
-        this.subtotal = subtotal;
+    public void setSubtotalCents(long subtotalCents) {
+        this.subtotalCents = subtotalCents;
     }
 
     public Item getItem() {
@@ -0,0 +1,42 @@
+package com.pahanaedu.billingapp.model;
+
+import com.pahanaedu.billingapp.util.Money;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Lifetime totals of one customer's live and archived bills, kept up to date by
+// CustomerSpendService as bills are created and deleted, so user listings never scan bill
+@Entity
+@Table(name = "customer_spend", indexes = {
+        @Index(name = "idx_customer_spend_total", columnList = "total_spent_cents")
+})
+public class CustomerSpend {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "bill_count", nullable = false)
+    private long billCount;
+
+    // stored in cents (see Money)
+    @Column(name = "total_spent_cents", nullable = false)
+    private long totalSpentCents;
+
+    @Column(name = "last_purchase_at")
+    private LocalDateTime lastPurchaseAt;
+
+    public CustomerSpend() {}
+
+    // Getters
+    public Long getUserId() { return userId; }
+
+    public long getBillCount() { return billCount; }
+
+    public double getTotalSpent() { return Money.toMajor(totalSpentCents); }
+
+    public long getTotalSpentCents() { return totalSpentCents; }
+
+    public LocalDateTime getLastPurchaseAt() { return lastPurchaseAt; }
+}
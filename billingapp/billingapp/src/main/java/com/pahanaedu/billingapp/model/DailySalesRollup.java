@@ -0,0 +1,71 @@
+package com.pahanaedu.billingapp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Units and revenue of one item on one day, kept up to date by SalesRollupService as bills
+// are created and deleted, so sales reports never scan bill_item
+@Entity
+@Table(name = "daily_sales_rollup", indexes = {
+        @Index(name = "idx_rollup_category_day", columnList = "category, sales_day")
+})
+@IdClass(DailySalesRollup.Key.class)
+public class DailySalesRollup {
+
+    @Id
+    @Column(name = "sales_day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    // The item's category at the time of its last sale that day
+    @Column(length = 60)
+    private String category;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    // stored in cents (see Money)
+    @Column(name = "revenue_cents", nullable = false)
+    private long revenueCents;
+
+    public DailySalesRollup() {}
+
+    // Getters
+    public LocalDate getDay() { return day; }
+
+    public Long getItemId() { return itemId; }
+
+    public String getCategory() { return category; }
+
+    public long getQuantity() { return quantity; }
+
+    public long getRevenueCents() { return revenueCents; }
+
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long itemId;
+
+        public Key() {}
+
+        public Key(LocalDate day, Long itemId) {
+            this.day = day;
+            this.itemId = itemId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(day, key.day) && Objects.equals(itemId, key.itemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, itemId);
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.pahanaedu.billingapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pahanaedu.billingapp.util.Money;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "item") // optional but nice
+@Table(name = "item", indexes = @Index(name = "idx_item_category", columnList = "category"))
 public class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("item")
     private Long id;
 
     @Column(nullable=false)
@@ -16,9 +18,9 @@ public class Item {
     @Column(length = 2000)
     private String description;
 
-    // keep existing DB columns; API will map to these
-    @Column(name = "price", nullable = false)
-    private double price;
+    // stored in cents (see Money); the API and forms still use price in rupees
+    @Column(name = "price_cents", nullable = false)
+    private long priceCents;
 
     @Column(name = "stock", nullable = false)
     private int stock;
@@ -27,12 +29,17 @@ public class Item {
     @Column(length = 60)
     private String category;
 
+    // Stock level at which staff are alerted; null falls back to the category or default
+    // threshold (see StockAlertService)
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
     public Item() {}
 
     public Item(String name, String description, double price, int stock) {
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.priceCents = Money.ofMajor(price);
         this.stock = stock;
     }
 
@@ -46,12 +53,19 @@ public class Item {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public double getPrice() { return Money.toMajor(priceCents); }
+    public void setPrice(double price) { this.priceCents = Money.ofMajor(price); }
+
+    @JsonIgnore
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
 
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
 
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+
+    public Integer getLowStockThreshold() { return lowStockThreshold; }
+    public void setLowStockThreshold(Integer lowStockThreshold) { this.lowStockThreshold = lowStockThreshold; }
 }
@@ -0,0 +1,39 @@
+package com.pahanaedu.billingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Time-decayed sales score of an item, flushed periodically by ItemPopularityService.
+// score is the decayed unit count as of scoredAt; it halves every app.featured.half-life-hours.
+@Entity
+@Table(name = "item_popularity")
+public class ItemPopularity {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(name = "scored_at", nullable = false)
+    private LocalDateTime scoredAt;
+
+    public ItemPopularity() {}
+
+    public ItemPopularity(Long itemId, double score, LocalDateTime scoredAt) {
+        this.itemId = itemId;
+        this.score = score;
+        this.scoredAt = scoredAt;
+    }
+
+    // Getters and Setters
+    public Long getItemId() { return itemId; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    public LocalDateTime getScoredAt() { return scoredAt; }
+    public void setScoredAt(LocalDateTime scoredAt) { this.scoredAt = scoredAt; }
+}
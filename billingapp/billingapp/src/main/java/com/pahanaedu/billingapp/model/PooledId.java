@@ -0,0 +1,21 @@
+package com.pahanaedu.billingapp.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id taken from a block reserved in the shared id_generator table (see PooledIdGenerator).
+ * Unlike IDENTITY, this lets Hibernate batch the inserts.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledId {
+
+    // Row of id_generator that holds this entity's next id block, normally the table name
+    String value();
+}
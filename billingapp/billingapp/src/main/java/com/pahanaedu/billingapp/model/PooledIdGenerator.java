@@ -0,0 +1,43 @@
+package com.pahanaedu.billingapp.model;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+// Table-backed pooled generator, so it behaves the same on H2 and on MySQL (which has no sequences).
+// Block size comes from spring.jpa.properties.app.id.allocation_size.
+public class PooledIdGenerator extends TableGenerator {
+
+    public static final String TABLE = "id_generator";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final String ALLOCATION_SIZE_SETTING = "app.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private final String segment;
+
+    public PooledIdGenerator(PooledId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.segment = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(),
+                DEFAULT_ALLOCATION_SIZE);
+
+        params.setProperty(TABLE_PARAM, TABLE);
+        params.setProperty(SEGMENT_COLUMN_PARAM, SEGMENT_COLUMN);
+        params.setProperty(VALUE_COLUMN_PARAM, VALUE_COLUMN);
+        params.setProperty(SEGMENT_VALUE_PARAM, segment);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, params, serviceRegistry);
+    }
+}
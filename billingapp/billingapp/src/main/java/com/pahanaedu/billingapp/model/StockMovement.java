@@ -0,0 +1,45 @@
+package com.pahanaedu.billingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Stock change recorded with a bill and applied to the item table later by the ledger flusher
+@Entity
+@Table(name = "stock_movement")
+public class StockMovement {
+
+    @Id
+    @PooledId("stock_movement")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // Signed delta: negative for sales
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public StockMovement() {}
+
+    public StockMovement(Long itemId, int quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,7 +1,6 @@
 package com.pahanaedu.billingapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.util.List;
 import java.util.Set;
@@ -10,7 +9,7 @@ import java.util.Set;
 @Table(name = "users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("users")
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -32,8 +31,9 @@ public class User {
     )
     private Set<Role> roles;
 
+    // Never serialized: a user's whole bill history would be loaded for every user in a response
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
-    @JsonIgnoreProperties("user") // ✅ Prevent recursion in JSON
+    @JsonIgnore
     private List<Bill> bills;
 
     // Getters and setters
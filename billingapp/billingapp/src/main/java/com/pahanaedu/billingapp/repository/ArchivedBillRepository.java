@@ -0,0 +1,30 @@
+package com.pahanaedu.billingapp.repository;
+
+import com.pahanaedu.billingapp.model.ArchivedBill;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedBillRepository extends JpaRepository<ArchivedBill, Long> {
+    // Reads only the index columns, not the snapshot
+    @Query("SELECT a.billDate FROM ArchivedBill a WHERE a.id = :id AND (:userId IS NULL OR a.userId = :userId)")
+    Optional<LocalDateTime> findBillDate(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Keyset batches of the bills dated in [from, to), by id
+    @Query("SELECT a FROM ArchivedBill a WHERE a.billDate >= :from AND a.billDate < :to AND a.id > :afterId ORDER BY a.id")
+    List<ArchivedBill> findBatchBilledBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                              @Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset batches of snapshots for exports, by id; userId, from and to are optional.
+    // Only the payload column is read, so no entity stays in the persistence context
+    @Query("SELECT a.payload FROM ArchivedBill a WHERE (:userId IS NULL OR a.userId = :userId)"
+            + " AND (:from IS NULL OR a.billDate >= :from) AND (:to IS NULL OR a.billDate < :to)"
+            + " AND a.id > :afterId ORDER BY a.id")
+    List<byte[]> findPayloadBatch(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to, @Param("afterId") Long afterId, Pageable pageable);
+}
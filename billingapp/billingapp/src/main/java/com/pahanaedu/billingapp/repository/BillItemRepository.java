@@ -1,7 +1,38 @@
 package com.pahanaedu.billingapp.repository;
 
+import com.pahanaedu.billingapp.dto.BillExportRow;
 import com.pahanaedu.billingapp.model.BillItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface BillItemRepository extends JpaRepository<BillItem, Long> {}
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Stream;
 
+public interface BillItemRepository extends JpaRepository<BillItem, Long> {
+
+    @Modifying
+    @Query("DELETE FROM BillItem bi WHERE bi.bill.id IN :billIds")
+    int deleteByBillIds(@Param("billIds") Collection<Long> billIds);
+
+    // Forward-only stream of export rows in bill order; must be consumed inside a transaction and closed.
+    // On MySQL the fetch size only streams with useCursorFetch=true (see application-mysql.properties).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.pahanaedu.billingapp.dto.BillExportRow(b.id, b.invoiceNumber, b.billDate, u.id, u.fullName,"
+            + " b.totalAmountCents, bi.id, i.id, i.name, bi.quantity, bi.unitPriceCents, bi.subtotalCents)"
+            + " FROM BillItem bi JOIN bi.bill b LEFT JOIN b.user u LEFT JOIN bi.item i"
+            + " WHERE (:userId IS NULL OR u.id = :userId)"
+            + " AND (:from IS NULL OR b.billDate >= :from) AND (:to IS NULL OR b.billDate < :to)"
+            + " ORDER BY b.id, bi.id")
+    Stream<BillExportRow> streamExportRows(@Param("userId") Long userId,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+}
@@ -1,12 +1,31 @@
 package com.pahanaedu.billingapp.repository;
 
 import com.pahanaedu.billingapp.model.Bill;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BillRepository extends JpaRepository<Bill, Long> {
-    // Find all bills for a specific user
-    List<Bill> findByUserId(Long userId);
-}
+    // Validators for conditional GETs: a primary-key or index-only lookup, no entity is loaded
+    @Query("SELECT b.billDate FROM Bill b LEFT JOIN b.user u WHERE b.id = :id AND (:userId IS NULL OR u.id = :userId)")
+    Optional<LocalDateTime> findBillDate(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Oldest bills first, one archive batch at a time
+    @Query("SELECT b.id FROM Bill b WHERE b.billDate < :cutoff ORDER BY b.id")
+    List<Long> findIdsBilledBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
 
+    // A bill with its lines, their items, its user and the user's roles in one statement (detail, print and PDF views)
+    @EntityGraph(attributePaths = {"user", "user.roles", "items", "items.item"})
+    Optional<Bill> findDetailById(Long id);
+
+    // Bills with their lines and items in one query
+    @EntityGraph(attributePaths = {"user", "items", "items.item"})
+    List<Bill> findAllWithItemsByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,7 @@
+package com.pahanaedu.billingapp.repository;
+
+import com.pahanaedu.billingapp.model.CustomerSpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CustomerSpendRepository extends JpaRepository<CustomerSpend, Long> {
+}
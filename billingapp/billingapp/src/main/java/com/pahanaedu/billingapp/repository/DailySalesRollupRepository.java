@@ -0,0 +1,40 @@
+package com.pahanaedu.billingapp.repository;
+
+import com.pahanaedu.billingapp.dto.SalesTotal;
+import com.pahanaedu.billingapp.model.DailySalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Sales reports read only these rollups; from is inclusive, to exclusive
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollup.Key> {
+
+    @Query("SELECT new com.pahanaedu.billingapp.dto.SalesTotal(r.day, SUM(r.quantity), SUM(r.revenueCents))"
+            + " FROM DailySalesRollup r WHERE r.day >= :from AND r.day < :to GROUP BY r.day ORDER BY r.day")
+    List<SalesTotal> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.pahanaedu.billingapp.dto.SalesTotal(COALESCE(r.category, ''), SUM(r.quantity), SUM(r.revenueCents))"
+            + " FROM DailySalesRollup r WHERE r.day >= :from AND r.day < :to"
+            + " GROUP BY COALESCE(r.category, '') ORDER BY SUM(r.revenueCents) DESC")
+    List<SalesTotal> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Best sellers by revenue
+    @Query("SELECT new com.pahanaedu.billingapp.dto.SalesTotal(r.itemId, i.name, i.category, SUM(r.quantity), SUM(r.revenueCents))"
+            + " FROM DailySalesRollup r LEFT JOIN Item i ON i.id = r.itemId WHERE r.day >= :from AND r.day < :to"
+            + " GROUP BY r.itemId, i.name, i.category ORDER BY SUM(r.revenueCents) DESC")
+    List<SalesTotal> sumByItem(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    List<DailySalesRollup> findByDayGreaterThanEqual(LocalDate from);
+
+    @Query("SELECT r.day FROM DailySalesRollup r")
+    List<LocalDate> findDays(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.day >= :from AND r.day < :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
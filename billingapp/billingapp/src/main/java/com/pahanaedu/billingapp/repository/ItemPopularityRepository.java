@@ -0,0 +1,11 @@
+package com.pahanaedu.billingapp.repository;
+
+import com.pahanaedu.billingapp.model.ItemPopularity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ItemPopularityRepository extends JpaRepository<ItemPopularity, Long> {
+    // One page of scores without a COUNT query, for the startup scan
+    Slice<ItemPopularity> findAllBy(Pageable pageable);
+}
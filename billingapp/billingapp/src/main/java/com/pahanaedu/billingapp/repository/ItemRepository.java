@@ -1,12 +1,19 @@
 package com.pahanaedu.billingapp.repository;
 
 import com.pahanaedu.billingapp.model.Item;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     Page<Item> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
@@ -28,6 +35,22 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 
     // Method for featured items (items with stock > 0)
     Page<Item> findByStockGreaterThanOrderByIdDesc(int stock, Pageable pageable);
+
+    // Locks the rows in ascending id order so concurrent bills cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id IN :ids ORDER BY i.id")
+    List<Item> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Stock as it will be once every pending ledger movement is flushed (read in one statement)
+    @Query("""
+           SELECT i.stock + COALESCE((SELECT SUM(m.quantity) FROM StockMovement m WHERE m.itemId = i.id), 0)
+           FROM Item i WHERE i.id = :id
+           """)
+    Optional<Long> findStockIncludingPendingMovements(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.stock = i.stock + :delta WHERE i.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
 }
 
 
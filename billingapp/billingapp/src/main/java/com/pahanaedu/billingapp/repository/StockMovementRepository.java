@@ -0,0 +1,12 @@
+package com.pahanaedu.billingapp.repository;
+
+import com.pahanaedu.billingapp.model.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    // Oldest pending movements first, one flush batch at a time
+    List<StockMovement> findByOrderByIdAsc(Pageable pageable);
+}
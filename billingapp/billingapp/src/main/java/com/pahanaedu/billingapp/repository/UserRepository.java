@@ -3,11 +3,23 @@ package com.pahanaedu.billingapp.repository;
 
 import com.pahanaedu.billingapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    // Biggest spenders first (see CustomerSpend); users without bills come last
+    @Query("SELECT u FROM User u LEFT JOIN CustomerSpend s ON s.userId = u.id"
+            + " ORDER BY COALESCE(s.totalSpentCents, 0) DESC, u.id")
+    List<User> findAllOrderBySpendDesc();
+
+    @Query("SELECT u.fullName FROM User u WHERE u.id = :id")
+    Optional<String> findFullNameById(@Param("id") Long id);
 }
 
 
@@ -0,0 +1,261 @@
+package com.pahanaedu.billingapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillSnapshot;
+import com.pahanaedu.billingapp.model.ArchivedBill;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.ArchivedBillRepository;
+import com.pahanaedu.billingapp.repository.BillItemRepository;
+import com.pahanaedu.billingapp.repository.BillRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier for old bills. A nightly job moves bills older than app.archive.after-days out of
+ * bill/bill_item into archived_bill (thin index columns + gzipped snapshot), so the hot tables
+ * only hold recent bills. Archived bills are rebuilt on demand for BillService.getBillById.
+ */
+@Service
+public class BillArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillArchiveService.class);
+
+    private final BillRepository billRepository;
+    private final BillItemRepository billItemRepository;
+    private final ArchivedBillRepository archivedBillRepository;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BillListVersion billListVersion;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterDays;
+    private final int batchSize;
+
+    public BillArchiveService(BillRepository billRepository,
+                              BillItemRepository billItemRepository,
+                              ArchivedBillRepository archivedBillRepository,
+                              UserRepository userRepository,
+                              ItemRepository itemRepository,
+                              BillListVersion billListVersion,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.archive.after-days:365}") int afterDays,
+                              @Value("${app.archive.batch-size:200}") int batchSize) {
+        this.billRepository = billRepository;
+        this.billItemRepository = billItemRepository;
+        this.archivedBillRepository = archivedBillRepository;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.billListVersion = billListVersion;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archiveOldBills() {
+        int archived = archiveBillsBefore(LocalDateTime.now().minusDays(afterDays));
+        if (archived > 0) {
+            logger.info("Archived {} bills older than {} days", archived, afterDays);
+        }
+    }
+
+    // Moves every bill dated before cutoff, one batch per transaction; returns how many moved
+    public int archiveBillsBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived += batch;
+        } while (batch == batchSize);
+        return archived;
+    }
+
+    public Optional<Bill> findBill(Long id) {
+        return archivedBillRepository.findById(id).map(archived -> rebuild(readSnapshot(archived.getPayload())));
+    }
+
+    public Optional<LocalDateTime> findBillDate(Long id, Long userId) {
+        return archivedBillRepository.findBillDate(id, userId);
+    }
+
+    // Reads the snapshots of the archived bills dated in [from, to), one batch at a time
+    public void forEachSnapshot(LocalDateTime from, LocalDateTime to, Consumer<BillSnapshot> action) {
+        long afterId = 0;
+        List<ArchivedBill> batch;
+        do {
+            batch = archivedBillRepository.findBatchBilledBetween(from, to, afterId, PageRequest.of(0, batchSize));
+            for (ArchivedBill archived : batch) {
+                action.accept(readSnapshot(archived.getPayload()));
+                afterId = archived.getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // Snapshots of the archived bills for an export, by id (userId, from and to are optional);
+    // batches are read as the iterator advances, so it must be used inside one transaction
+    public Iterator<BillSnapshot> snapshots(Long userId, LocalDateTime from, LocalDateTime to) {
+        return new Iterator<>() {
+            private List<byte[]> batch = List.of();
+            private int next;
+            private long afterId;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                if (next == batch.size() && !last) {
+                    batch = archivedBillRepository.findPayloadBatch(userId, from, to, afterId, PageRequest.of(0, batchSize));
+                    next = 0;
+                    last = batch.size() < batchSize;
+                }
+                return next < batch.size();
+            }
+
+            @Override
+            public BillSnapshot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BillSnapshot snapshot = readSnapshot(batch.get(next++));
+                afterId = snapshot.getId();
+                return snapshot;
+            }
+        };
+    }
+
+    public void deleteBill(Long id) {
+        if (archivedBillRepository.existsById(id)) {
+            archivedBillRepository.deleteById(id);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = billRepository.findIdsBilledBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<ArchivedBill> archived = new ArrayList<>(ids.size());
+        for (Bill bill : billRepository.findAllWithItemsByIdIn(ids)) {
+            archived.add(new ArchivedBill(bill, writeSnapshot(snapshot(bill))));
+        }
+        archivedBillRepository.saveAll(archived);
+        billItemRepository.deleteByBillIds(ids);
+        billRepository.deleteAllByIdInBatch(ids);
+        billListVersion.bumpAfterCommit();
+        return ids.size();
+    }
+
+    private static BillSnapshot snapshot(Bill bill) {
+        BillSnapshot snapshot = new BillSnapshot();
+        snapshot.setId(bill.getId());
+        snapshot.setInvoiceNumber(bill.getInvoiceNumber());
+        snapshot.setUserId(bill.getUser() != null ? bill.getUser().getId() : null);
+        snapshot.setBillDate(bill.getBillDate());
+        snapshot.setTotalAmountCents(bill.getTotalAmountCents());
+
+        List<BillSnapshot.Line> lines = new ArrayList<>(bill.getItems().size());
+        for (BillItem billItem : bill.getItems()) {
+            BillSnapshot.Line line = new BillSnapshot.Line();
+            line.setId(billItem.getId());
+            if (billItem.getItem() != null) {
+                line.setItemId(billItem.getItem().getId());
+                line.setItemName(billItem.getItem().getName());
+            }
+            line.setQuantity(billItem.getQuantity());
+            line.setUnitPriceCents(billItem.getUnitPriceCents());
+            line.setSubtotalCents(billItem.getSubtotalCents());
+            lines.add(line);
+        }
+        snapshot.setItems(lines);
+        return snapshot;
+    }
+
+    // The rebuilt bill is detached and must not be saved: it would be inserted into the hot tables again
+    private Bill rebuild(BillSnapshot snapshot) {
+        Bill bill = new Bill();
+        bill.setId(snapshot.getId());
+        bill.setInvoiceNumber(snapshot.getInvoiceNumber());
+        bill.setBillDate(snapshot.getBillDate());
+        bill.setTotalAmountCents(snapshot.getTotalAmountCents());
+        if (snapshot.getUserId() != null) {
+            bill.setUser(userRepository.findById(snapshot.getUserId()).orElse(null));
+        }
+
+        Map<Long, Item> items = new HashMap<>();
+        List<Long> itemIds = snapshot.getItems().stream().map(BillSnapshot.Line::getItemId).filter(id -> id != null).toList();
+        for (Item item : itemRepository.findAllById(itemIds)) {
+            items.put(item.getId(), item);
+        }
+
+        List<BillItem> billItems = new ArrayList<>(snapshot.getItems().size());
+        for (BillSnapshot.Line line : snapshot.getItems()) {
+            BillItem billItem = new BillItem();
+            billItem.setId(line.getId());
+            Item item = items.get(line.getItemId());
+            billItem.setItem(item != null ? item : deletedItem(line));
+            billItem.setQuantity(line.getQuantity());
+            billItem.setUnitPriceCents(line.getUnitPriceCents());
+            billItem.setSubtotalCents(line.getSubtotalCents());
+            billItems.add(billItem);
+        }
+        bill.setItems(billItems);
+        return bill;
+    }
+
+    // Stand-in for an item that no longer exists, so the bill still shows the line
+    private static Item deletedItem(BillSnapshot.Line line) {
+        Item item = new Item();
+        item.setId(line.getItemId());
+        item.setName(line.getItemName());
+        item.setPriceCents(line.getUnitPriceCents());
+        return item;
+    }
+
+    private byte[] writeSnapshot(BillSnapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive bill " + snapshot.getId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private BillSnapshot readSnapshot(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, BillSnapshot.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archived bill", e);
+        }
+    }
+}
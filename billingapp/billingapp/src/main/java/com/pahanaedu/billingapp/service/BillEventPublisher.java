@@ -0,0 +1,298 @@
+package com.pahanaedu.billingapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillEvent;
+import com.pahanaedu.billingapp.dto.BillSummary;
+import com.pahanaedu.billingapp.dto.LowStockItem;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process fan-out of bill events to Server-Sent Events subscribers (GET /api/bills/stream).
+ * Idle subscribers hold no thread: each event is serialized once, queued per subscriber, and
+ * written by a short-lived virtual thread. A subscriber whose queue fills up is disconnected and
+ * resumes with Last-Event-ID from the bounded replay buffer. Event ids are "{startedAt}-{sequence}",
+ * so ids from before a restart trigger a "reset" event instead of a wrong replay. Stock alerts
+ * travel on the same stream and only reach subscribers of all bills (admins).
+ */
+@Service
+public class BillEventPublisher {
+
+    public static final String RESET = "reset";
+    public static final String STOCK_ALERT = "stock-alert";
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int subscriberBuffer;
+    private final Published[] replay;
+    private final long startedAt = System.currentTimeMillis();
+    // Guards the sequence, the replay buffer and subscribe, so replays and live events never interleave
+    private final ReentrantLock lock = new ReentrantLock();
+    private long sequence;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BillEventPublisher(ObjectMapper objectMapper,
+                              @Value("${app.bill-stream.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${app.bill-stream.replay-size:1000}") int replaySize,
+                              @Value("${app.bill-stream.subscriber-buffer:256}") int subscriberBuffer) {
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.replay = new Published[replaySize];
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    // Publishes the bills once the current transaction commits (right away outside one)
+    public void publishAfterCommit(String type, List<Bill> bills) {
+        List<BillEvent> events = new ArrayList<>(bills.size());
+        for (Bill bill : bills) {
+            events.add(toEvent(type, bill));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(BillEventPublisher.this::publish);
+                }
+            });
+        } else {
+            events.forEach(this::publish);
+        }
+    }
+
+    // Sent right away; callers raise alerts after their transaction commits (see StockAlertService)
+    public void publishStockAlert(LowStockItem item) {
+        publish(STOCK_ALERT, null, item);
+    }
+
+    // userId limits the stream to that customer's bills (null for all bills)
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMs), userId, lastEventId);
+    }
+
+    public SseEmitter subscribe(SseEmitter emitter, Long userId, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, userId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        lock.lock();
+        try {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replayAfter(subscriber, lastEventId.trim());
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    // Comment lines keep proxies from closing idle streams and reveal disconnected clients
+    @Scheduled(fixedDelayString = "${app.bill-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(ping);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("published", published.get());
+        stats.put("droppedSubscribers", dropped.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        executor.shutdown();
+    }
+
+    private void publish(BillEvent event) {
+        publish(event.getType(), event.getBill().getUserId(), event);
+    }
+
+    // userId null reaches only the subscribers of all bills
+    private void publish(String name, Long userId, Object payload) {
+        lock.lock();
+        try {
+            long seq = ++sequence;
+            Published entry = new Published(seq, userId, SseEmitter.event()
+                    .id(startedAt + "-" + seq)
+                    .name(name)
+                    .data(toJson(payload))
+                    .build());
+            replay[(int) (seq % replay.length)] = entry;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(entry)) {
+                    subscriber.offer(entry.frames);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        published.incrementAndGet();
+    }
+
+    // Called under the lock; queues every buffered event after lastEventId, or a reset if some are gone
+    private void replayAfter(Subscriber subscriber, String lastEventId) {
+        long after = parseSequence(lastEventId);
+        long oldest = Math.max(1, sequence - replay.length + 1);
+        if (after < 0 || after > sequence || after + 1 < oldest) {
+            subscriber.offer(SseEmitter.event().name(RESET).data("{}").build());
+            return;
+        }
+        for (long seq = after + 1; seq <= sequence; seq++) {
+            Published entry = replay[(int) (seq % replay.length)];
+            if (subscriber.accepts(entry)) {
+                subscriber.offer(entry.frames);
+            }
+        }
+    }
+
+    // -1 for ids of another run or malformed ids
+    private long parseSequence(String lastEventId) {
+        int dash = lastEventId.indexOf('-');
+        try {
+            if (dash < 0 || Long.parseLong(lastEventId.substring(0, dash)) != startedAt) {
+                return -1;
+            }
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Serialized once here rather than by every subscriber's message converter
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + payload.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static BillEvent toEvent(String type, Bill bill) {
+        long units = 0;
+        List<BillItem> items = bill.getItems() != null ? bill.getItems() : List.of();
+        for (BillItem billItem : items) {
+            units += billItem.getQuantity();
+        }
+        BillSummary summary = new BillSummary(bill.getId(), bill.getInvoiceNumber(), bill.getBillDate(),
+                bill.getTotalAmountCents(),
+                bill.getUser() != null ? bill.getUser().getId() : null,
+                bill.getUser() != null ? bill.getUser().getFullName() : null,
+                items.size());
+        return new BillEvent(type, summary, units);
+    }
+
+    private record Published(long sequence, Long userId, Set<ResponseBodyEmitter.DataWithMediaType> frames) {}
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>();
+        private final ReentrantLock queueLock = new ReentrantLock();
+        private boolean draining;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter, Long userId) {
+            this.emitter = emitter;
+            this.userId = userId;
+        }
+
+        private boolean accepts(Published entry) {
+            return entry != null && (userId == null || userId.equals(entry.userId()));
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> frames) {
+            boolean startDrain = false;
+            boolean overflow = false;
+            queueLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= subscriberBuffer) {
+                    // Too slow: let the client reconnect and replay instead of buffering without bound
+                    closed = true;
+                    queue.clear();
+                    overflow = true;
+                } else {
+                    queue.add(frames);
+                    if (!draining) {
+                        draining = true;
+                        startDrain = true;
+                    }
+                }
+            } finally {
+                queueLock.unlock();
+            }
+            if (overflow) {
+                dropped.incrementAndGet();
+                subscribers.remove(this);
+                emitter.complete();
+            } else if (startDrain) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> frames;
+                queueLock.lock();
+                try {
+                    frames = queue.poll();
+                    if (frames == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    queueLock.unlock();
+                }
+                try {
+                    emitter.send(frames);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away
+                    queueLock.lock();
+                    try {
+                        closed = true;
+                        draining = false;
+                        queue.clear();
+                    } finally {
+                        queueLock.unlock();
+                    }
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.pahanaedu.billingapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pahanaedu.billingapp.dto.BillExportRow;
+import com.pahanaedu.billingapp.dto.BillSnapshot;
+import com.pahanaedu.billingapp.repository.BillItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Writes bill lines as NDJSON or CSV straight from a forward-only database stream.
+ * Rows are unmanaged projections written one at a time, so memory use does not depend on
+ * how many lines are exported. Archived bills are read in id batches and merged into the
+ * stream, so an export covers every bill in bill id, line id order.
+ */
+@Service
+public class BillExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private final BillItemRepository billItemRepository;
+    private final BillArchiveService billArchiveService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BillExportService(BillItemRepository billItemRepository,
+                             BillArchiveService billArchiveService,
+                             UserRepository userRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.billItemRepository = billItemRepository;
+        this.billArchiveService = billArchiveService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // userId, from and to are optional filters (from inclusive, to exclusive); returns the number of rows written
+    public long export(String format, Long userId, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        if (!NDJSON.equals(format) && !CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        // The stream holds an open result set, so it lives and dies inside this transaction
+        Long written = readOnlyTransaction.execute(status -> {
+            try (Stream<BillExportRow> liveRows = billItemRepository.streamExportRows(userId, from, to)) {
+                Iterator<BillExportRow> rows = new MergedRows(liveRows.iterator(),
+                        new ArchivedRows(billArchiveService.snapshots(userId, from, to)));
+                return NDJSON.equals(format) ? writeNdjson(rows, out) : writeCsv(rows, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Bill export failed", e);
+            }
+        });
+        return written == null ? 0 : written;
+    }
+
+    private long writeNdjson(Iterator<BillExportRow> rows, OutputStream out) throws IOException {
+        long written = 0;
+        // Let the generator's buffer decide when to write instead of flushing after every row
+        try (SequenceWriter writer = objectMapper.writerFor(BillExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(new NonClosingOutputStream(out))) {
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+                written++;
+            }
+        }
+        if (written > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return written;
+    }
+
+    private long writeCsv(Iterator<BillExportRow> rows, OutputStream out) throws IOException {
+        long written = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new NonClosingOutputStream(out), StandardCharsets.UTF_8));
+        writeCsvLine(writer, BillExportRow.CSV_HEADER);
+        while (rows.hasNext()) {
+            writeCsvLine(writer, rows.next().getCsvValues());
+            written++;
+        }
+        writer.close();
+        out.flush();
+        return written;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting: fields with separators, quotes or line breaks are quoted, quotes doubled
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    // Lines of archived bills in the export row shape; customer names are looked up once per customer
+    private class ArchivedRows implements Iterator<BillExportRow> {
+        private final Iterator<BillSnapshot> snapshots;
+        private final ArrayDeque<BillExportRow> lines = new ArrayDeque<>();
+        private final Map<Long, Optional<String>> customerNames = new HashMap<>();
+
+        ArchivedRows(Iterator<BillSnapshot> snapshots) {
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (lines.isEmpty() && snapshots.hasNext()) {
+                BillSnapshot bill = snapshots.next();
+                String customerName = bill.getUserId() == null ? null : customerNames
+                        .computeIfAbsent(bill.getUserId(), userRepository::findFullNameById).orElse(null);
+                bill.getItems().stream()
+                        .sorted(Comparator.comparing(BillSnapshot.Line::getId))
+                        .forEach(line -> lines.add(new BillExportRow(bill.getId(), bill.getInvoiceNumber(),
+                                bill.getBillDate(), bill.getUserId(), customerName, bill.getTotalAmountCents(),
+                                line.getId(), line.getItemId(), line.getItemName(), line.getQuantity(),
+                                line.getUnitPriceCents(), line.getSubtotalCents())));
+            }
+            return !lines.isEmpty();
+        }
+
+        @Override
+        public BillExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return lines.poll();
+        }
+    }
+
+    // Merges two row iterators that are each ordered by bill id, then line id
+    private static class MergedRows implements Iterator<BillExportRow> {
+        private static final Comparator<BillExportRow> ORDER =
+                Comparator.comparing(BillExportRow::getBillId).thenComparing(BillExportRow::getLineId);
+
+        private final Iterator<BillExportRow> first;
+        private final Iterator<BillExportRow> second;
+        private BillExportRow nextFirst;
+        private BillExportRow nextSecond;
+
+        MergedRows(Iterator<BillExportRow> first, Iterator<BillExportRow> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public BillExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BillExportRow row;
+            if (nextSecond == null || (nextFirst != null && ORDER.compare(nextFirst, nextSecond) <= 0)) {
+                row = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                row = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return row;
+        }
+    }
+
+    // The response stream belongs to the servlet container; writers must not close it
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
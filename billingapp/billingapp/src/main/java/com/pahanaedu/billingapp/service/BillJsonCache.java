@@ -0,0 +1,137 @@
+package com.pahanaedu.billingapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Byte-bounded LRU cache of the serialized JSON of recently viewed bills. Bills never change
+ * after they are created, so an entry stays valid until the bill is deleted. Each entry keeps
+ * the owner and bill date so hits can be authorized and revalidated without the database.
+ * Callers read {@link #generation()} before loading a bill and pass it to put, so JSON loaded
+ * before a concurrent delete is not cached after the delete invalidated it.
+ */
+@Service
+public class BillJsonCache {
+
+    // Rough cost of the map entry and Cached object on top of the JSON itself
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long maxBytes;
+    // Access order: the eldest entry is the least recently used
+    private final LinkedHashMap<Long, Cached> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long bytes;
+    // Bumped by every invalidate; guarded by lock
+    private long generation;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BillJsonCache(@Value("${app.bill-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Cached get(Long billId) {
+        Cached cached;
+        lock.lock();
+        try {
+            cached = entries.get(billId);
+        } finally {
+            lock.unlock();
+        }
+        (cached == null ? misses : hits).incrementAndGet();
+        return cached;
+    }
+
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Skipped if any bill was invalidated since generation was read; the next view fills it again
+    public void put(Long billId, Cached cached, long generation) {
+        long weight = weight(cached);
+        if (weight > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (generation != this.generation) {
+                return;
+            }
+            Cached previous = entries.put(billId, cached);
+            bytes += weight - (previous == null ? 0 : weight(previous));
+            Iterator<Cached> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= weight(eldest.next());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(Long billId) {
+        lock.lock();
+        try {
+            generation++;
+            Cached removed = entries.remove(billId);
+            if (removed != null) {
+                bytes -= weight(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static long weight(Cached cached) {
+        return cached.json.length + ENTRY_OVERHEAD_BYTES;
+    }
+
+    public static class Cached {
+        private final byte[] json;
+        private final Long userId;
+        private final LocalDateTime billDate;
+
+        public Cached(byte[] json, Long userId, LocalDateTime billDate) {
+            this.json = json;
+            this.userId = userId;
+            this.billDate = billDate;
+        }
+
+        // UTF-8 JSON as GET /api/bills/{id} returns it; callers must not modify it
+        public byte[] getJson() { return json; }
+
+        public Long getUserId() { return userId; }
+
+        public LocalDateTime getBillDate() { return billDate; }
+    }
+}
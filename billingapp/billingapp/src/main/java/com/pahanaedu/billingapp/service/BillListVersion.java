@@ -0,0 +1,80 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.PooledIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Version of the bill listings, for their ETags: a counter row in the id_generator table that
+ * every transaction creating, deleting or archiving bills bumps once it has committed. Reading
+ * it is a primary-key lookup, and every instance shares it across restarts. Between a commit
+ * and its bump a listing may still answer 304 for a moment; the bump ends that.
+ */
+@Service
+public class BillListVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillListVersion.class);
+
+    private static final String SEGMENT = "bill-list-version";
+    private static final String SELECT = "SELECT " + PooledIdGenerator.VALUE_COLUMN + " FROM " + PooledIdGenerator.TABLE
+            + " WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ?";
+    private static final String BUMP = "UPDATE " + PooledIdGenerator.TABLE + " SET " + PooledIdGenerator.VALUE_COLUMN
+            + " = " + PooledIdGenerator.VALUE_COLUMN + " + 1 WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ?";
+    private static final String INSERT = "INSERT INTO " + PooledIdGenerator.TABLE + " (" + PooledIdGenerator.SEGMENT_COLUMN
+            + ", " + PooledIdGenerator.VALUE_COLUMN + ") VALUES (?, 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Bumps commit on their own, right after the bill transaction, so the row is never locked for long
+    private final TransactionTemplate bumpTemplate;
+
+    public BillListVersion(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bumpTemplate = new TransactionTemplate(transactionManager);
+        this.bumpTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String current() {
+        List<Long> version = jdbcTemplate.queryForList(SELECT, Long.class, SEGMENT);
+        return version.isEmpty() ? "0" : version.get(0).toString();
+    }
+
+    // Call inside the transaction that changes the bills; a rolled-back change does not bump it
+    public void bumpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump();
+                }
+            });
+        } else {
+            bump();
+        }
+    }
+
+    // Never throws: the bills are already committed
+    private void bump() {
+        try {
+            bumpTemplate.executeWithoutResult(status -> {
+                if (jdbcTemplate.update(BUMP, SEGMENT) == 0) {
+                    jdbcTemplate.update(INSERT, SEGMENT);
+                }
+            });
+        } catch (DuplicateKeyException e) {
+            // Another instance created the row first
+            bump();
+        } catch (RuntimeException e) {
+            logger.warn("Could not bump the bill list version; listings may answer 304 until the next change", e);
+        }
+    }
+}
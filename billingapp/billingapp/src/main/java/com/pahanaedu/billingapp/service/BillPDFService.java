@@ -1,7 +1,6 @@
 package com.pahanaedu.billingapp.service;
 
 import com.pahanaedu.billingapp.model.Bill;
-import com.pahanaedu.billingapp.repository.BillRepository;
 import com.pahanaedu.billingapp.util.PdfGeneratorUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,11 +12,11 @@ import org.thymeleaf.context.Context;
 public class BillPDFService {
 
     private static final Logger logger = LoggerFactory.getLogger(BillPDFService.class);
-    private final BillRepository billRepository;
+    private final BillService billService;
     private final TemplateEngine templateEngine;
 
-    public BillPDFService(BillRepository billRepository, TemplateEngine templateEngine) {
-        this.billRepository = billRepository;
+    public BillPDFService(BillService billService, TemplateEngine templateEngine) {
+        this.billService = billService;
         this.templateEngine = templateEngine;
     }
 
@@ -25,8 +24,8 @@ public class BillPDFService {
         try {
             logger.info("Starting PDF generation for bill ID: {}", billId);
             
-            Bill bill = billRepository.findById(billId)
-                    .orElseThrow(() -> new IllegalArgumentException("Bill not found with ID: " + billId));
+            // Also finds archived bills
+            Bill bill = billService.getBillById(billId);
 
             if (bill.getUser() == null) {
                 logger.error("Bill {} has no associated user", billId);
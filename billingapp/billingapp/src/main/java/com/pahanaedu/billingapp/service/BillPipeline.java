@@ -0,0 +1,180 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.BillBatchResult;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillTicket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous bill creation. Submitted bills wait in a bounded queue and are committed by
+ * virtual-thread workers in micro-batches (one transaction per batch, see BillService.createBills).
+ * Callers get a ticket right away and poll it for the outcome.
+ */
+@Service
+public class BillPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillPipeline.class);
+
+    private final BillService billService;
+    private final BlockingQueue<BillTicket> queue;
+    private final Map<String, BillTicket> tickets = new ConcurrentHashMap<>();
+    private final int workerCount;
+    private final int batchSize;
+    private final Duration ticketTtl;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // Queue wait of the most recently started batch's oldest bill
+    private volatile long lastBatchLagMs;
+
+    public BillPipeline(BillService billService,
+                        @Value("${app.billing.async.queue-capacity:10000}") int queueCapacity,
+                        @Value("${app.billing.async.workers:4}") int workerCount,
+                        @Value("${app.billing.async.batch-size:50}") int batchSize,
+                        @Value("${app.billing.async.ticket-ttl-minutes:60}") long ticketTtlMinutes) {
+        this.billService = billService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.ticketTtl = Duration.ofMinutes(ticketTtlMinutes);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("bill-pipeline-" + i).start(this::drain));
+        }
+    }
+
+    // Enqueue a bill; throws QueueFullException when the queue is full
+    public BillTicket submit(BillDTO billDTO, String owner) {
+        BillTicket ticket = new BillTicket(UUID.randomUUID().toString(), owner, billDTO);
+        tickets.put(ticket.getId(), ticket);
+        if (!running || !queue.offer(ticket)) {
+            tickets.remove(ticket.getId());
+            throw new QueueFullException("Bill queue is full, please retry later");
+        }
+        return ticket;
+    }
+
+    public Optional<BillTicket> getTicket(String id) {
+        return Optional.ofNullable(tickets.get(id));
+    }
+
+    // Queue depth and worker lag for monitoring
+    public Map<String, Object> getStats() {
+        BillTicket oldest = queue.peek();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        stats.put("oldestPendingAgeMs", oldest == null ? 0 : ageMs(oldest));
+        stats.put("lastBatchLagMs", lastBatchLagMs);
+        stats.put("workers", workerCount);
+        stats.put("created", created.get());
+        stats.put("rejected", rejected.get());
+        stats.put("trackedTickets", tickets.size());
+        return stats;
+    }
+
+    // Forget finished tickets once clients had time to poll them
+    @Scheduled(fixedDelayString = "${app.billing.async.ticket-cleanup-ms:60000}")
+    public void evictFinishedTickets() {
+        Instant cutoff = Instant.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> !ticket.isPending() && ticket.getCompletedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Workers finish what is already queued before they exit
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("{} queued bills were not created before shutdown", queue.size());
+        }
+    }
+
+    private void drain() {
+        List<BillTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                BillTicket first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                lastBatchLagMs = ageMs(first);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Bill pipeline worker failed on a batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<BillTicket> batch) {
+        List<BillDTO> bills = new ArrayList<>(batch.size());
+        for (BillTicket ticket : batch) {
+            bills.add(ticket.getBill());
+        }
+
+        List<BillBatchResult> results;
+        try {
+            // Ownership was checked when the bill was submitted
+            results = billService.createBills(bills, 0, null);
+        } catch (Exception e) {
+            if (batch.size() > 1) {
+                // Find the bill that broke the batch by committing each one on its own
+                for (BillTicket ticket : batch) {
+                    process(List.of(ticket));
+                }
+                return;
+            }
+            results = List.of(BillBatchResult.rejected(0, "Error creating bill: " + e.getMessage()));
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BillBatchResult result = results.get(i);
+            batch.get(i).complete(result);
+            (BillBatchResult.CREATED.equals(result.getStatus()) ? created : rejected).incrementAndGet();
+        }
+    }
+
+    private static long ageMs(BillTicket ticket) {
+        return Duration.between(ticket.getSubmittedAt(), Instant.now()).toMillis();
+    }
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+}
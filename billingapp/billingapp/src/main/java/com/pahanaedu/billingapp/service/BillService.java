@@ -1,51 +1,208 @@
 package com.pahanaedu.billingapp.service;
 
+import com.pahanaedu.billingapp.dto.BillBatchResult;
 import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillEvent;
+import com.pahanaedu.billingapp.dto.BillPage;
+import com.pahanaedu.billingapp.dto.BillSearchCriteria;
+import com.pahanaedu.billingapp.dto.BillSummary;
 import com.pahanaedu.billingapp.dto.BillItemDTO;
 import com.pahanaedu.billingapp.model.Bill;
 import com.pahanaedu.billingapp.model.BillItem;
 import com.pahanaedu.billingapp.model.Item;
 import com.pahanaedu.billingapp.model.User;
 import com.pahanaedu.billingapp.repository.BillRepository;
-import com.pahanaedu.billingapp.repository.ItemRepository;
 import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.util.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Service
 public class BillService {
 
     private final BillRepository billRepository;
     private final UserRepository userRepository;
-    private final ItemRepository itemRepository;
+    private final InventoryEngine inventoryEngine;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final BillArchiveService billArchiveService;
+    private final BillJsonCache billJsonCache;
+    private final BillListVersion billListVersion;
+    private final SalesRollupService salesRollupService;
+    private final CustomerSpendService customerSpendService;
+    private final ItemPopularityService itemPopularityService;
+    private final BillEventPublisher billEventPublisher;
+    private final SalesAnalyticsEngine salesAnalyticsEngine;
+    private final StockAlertService stockAlertService;
+    private final TransactionTemplate transactionTemplate;
+    private final int lockRetries;
+    private final long retryBackoffMs;
+    private final Semaphore commitPermits;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public BillService(BillRepository billRepository,
                        UserRepository userRepository,
-                       ItemRepository itemRepository) {
+                       InventoryEngine inventoryEngine,
+                       InvoiceNumberAllocator invoiceNumberAllocator,
+                       BillArchiveService billArchiveService,
+                       BillJsonCache billJsonCache,
+                       BillListVersion billListVersion,
+                       SalesRollupService salesRollupService,
+                       CustomerSpendService customerSpendService,
+                       ItemPopularityService itemPopularityService,
+                       BillEventPublisher billEventPublisher,
+                       SalesAnalyticsEngine salesAnalyticsEngine,
+                       StockAlertService stockAlertService,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${app.billing.lock-retries:5}") int lockRetries,
+                       @Value("${app.billing.retry-backoff-ms:20}") long retryBackoffMs,
+                       @Value("${app.billing.max-concurrent-commits:0}") int maxConcurrentCommits,
+                       @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
         this.billRepository = billRepository;
         this.userRepository = userRepository;
-        this.itemRepository = itemRepository;
+        this.inventoryEngine = inventoryEngine;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.billArchiveService = billArchiveService;
+        this.billJsonCache = billJsonCache;
+        this.billListVersion = billListVersion;
+        this.salesRollupService = salesRollupService;
+        this.customerSpendService = customerSpendService;
+        this.itemPopularityService = itemPopularityService;
+        this.billEventPublisher = billEventPublisher;
+        this.salesAnalyticsEngine = salesAnalyticsEngine;
+        this.stockAlertService = stockAlertService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lockRetries = lockRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        if (maxConcurrentCommits <= 0) {
+            maxConcurrentCommits = Math.max(1, poolSize - 2);
+        } else if (maxConcurrentCommits >= poolSize) {
+            throw new IllegalArgumentException("app.billing.max-concurrent-commits must be below the connection pool size ("
+                    + poolSize + ")");
+        }
+        this.commitPermits = new Semaphore(maxConcurrentCommits, true);
+    }
+
+    // 🔹 Fetch one page of bills, newest first, using a (billDate, id) keyset instead of OFFSET/COUNT.
+    // userId, from and to are optional filters; cursor is the nextCursor of the previous page.
+    public BillPage getBillPage(Long userId, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        return searchBills(new BillSearchCriteria(userId, from, to), cursor, size);
+    }
+
+    // 🔹 Search bills page by page, newest first. Only the filters that are set go into the query,
+    // so each search stays a range scan on the bill(user_id, billDate) or bill(billDate) index;
+    // item and category filters are EXISTS probes on the bill_item(item_id, bill_id) index.
+    public BillPage searchBills(BillSearchCriteria criteria, String cursor, int size) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.pahanaedu.billingapp.dto.BillSummary(b.id, b.invoiceNumber,"
+                + " b.billDate, b.totalAmountCents, u.id, u.fullName, SIZE(b.items)) FROM Bill b LEFT JOIN b.user u WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (criteria.getUserId() != null) {
+            jpql.append(" AND u.id = :userId");
+            parameters.put("userId", criteria.getUserId());
+        }
+        if (criteria.getFrom() != null) {
+            jpql.append(" AND b.billDate >= :from");
+            parameters.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            jpql.append(" AND b.billDate < :to");
+            parameters.put("to", criteria.getTo());
+        }
+        if (criteria.getMinAmountCents() != null) {
+            jpql.append(" AND b.totalAmountCents >= :minAmount");
+            parameters.put("minAmount", criteria.getMinAmountCents());
+        }
+        if (criteria.getMaxAmountCents() != null) {
+            jpql.append(" AND b.totalAmountCents <= :maxAmount");
+            parameters.put("maxAmount", criteria.getMaxAmountCents());
+        }
+        if (criteria.getItemId() != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM BillItem bi WHERE bi.bill = b AND bi.item.id = :itemId)");
+            parameters.put("itemId", criteria.getItemId());
+        }
+        if (criteria.getCategory() != null && !criteria.getCategory().isBlank()) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM BillItem bi JOIN bi.item i WHERE bi.bill = b AND i.category = :category)");
+            parameters.put("category", criteria.getCategory().trim());
+        }
+        Object[] after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
+        if (after != null) {
+            jpql.append(" AND (b.billDate < :afterDate OR (b.billDate = :afterDate AND b.id < :afterId))");
+            parameters.put("afterDate", after[0]);
+            parameters.put("afterId", after[1]);
+        }
+        jpql.append(" ORDER BY b.billDate DESC, b.id DESC");
+
+        TypedQuery<BillSummary> query = entityManager.createQuery(jpql.toString(), BillSummary.class);
+        parameters.forEach(query::setParameter);
+        // One extra row tells whether another page exists, so no COUNT(*) is needed
+        List<BillSummary> rows = query.setMaxResults(size + 1).getResultList();
+
+        if (rows.size() <= size) {
+            return new BillPage(rows, null);
+        }
+        List<BillSummary> bills = new ArrayList<>(rows.subList(0, size));
+        BillSummary last = bills.get(size - 1);
+        return new BillPage(bills, encodeCursor(last.getBillDate(), last.getId()));
     }
 
-    // 🔹 Fetch all bills
-    public List<Bill> getAllBills() {
-        return billRepository.findAll();
+    private static String encodeCursor(LocalDateTime billDate, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((billDate + "|" + id).getBytes(StandardCharsets.UTF_8));
     }
 
-    // 🔹 Fetch bills by user ID
-    public List<Bill> getBillsByUserId(Long userId) {
-        return billRepository.findByUserId(userId);
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Object[]{LocalDateTime.parse(parts[0]), Long.valueOf(parts[1])};
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
     }
 
-    // 🔹 Fetch bill by ID
+    // 🔹 Fetch bill by ID (falls back to the archive for old bills)
     public Bill getBillById(Long id) {
-        return billRepository.findById(id)
+        return billRepository.findDetailById(id)
+                .or(() -> billArchiveService.findBill(id))
                 .orElseThrow(() -> new IllegalArgumentException("Bill with ID " + id + " not found"));
     }
 
+    // 🔹 Date of a bill for conditional GETs, without loading it; empty if it does not exist
+    // or (when userId is set) belongs to someone else
+    public Optional<LocalDateTime> findBillDate(Long id, Long userId) {
+        return billRepository.findBillDate(id, userId).or(() -> billArchiveService.findBillDate(id, userId));
+    }
+
+    // 🔹 Version of the bill listings, for ETags; changes with every committed insert, delete
+    // or archive, on any instance and across restarts (see BillListVersion)
+    public String getListVersion() {
+        return billListVersion.current();
+    }
+
     // 🔹 Fetch bill by ID and validate user ownership
     public Bill getBillByIdAndUserId(Long billId, Long userId) {
         Bill bill = getBillById(billId);
@@ -60,59 +217,220 @@ public class BillService {
         return billRepository.save(bill);
     }
 
-    // 🔹 Delete a bill by ID
+    // 🔹 Delete a bill by ID, taking it out of the sales rollups and customer spend in the same transaction
     public void deleteBill(Long id) {
-        billRepository.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<Bill> bill = billRepository.findDetailById(id).or(() -> billArchiveService.findBill(id));
+            bill.ifPresent(salesRollupService::reverse);
+            bill.ifPresent(customerSpendService::reverse);
+            billRepository.deleteById(id);
+            billArchiveService.deleteBill(id);
+            bill.ifPresent(deleted -> billEventPublisher.publishAfterCommit(BillEvent.DELETED, List.of(deleted)));
+            salesAnalyticsEngine.removeAfterCommit(id);
+            billListVersion.bumpAfterCommit();
+        });
+        billJsonCache.invalidate(id);
     }
 
 
 
     // 🔹 Swagger-compatible: Create a bill with items and user
     public Bill createBill(BillDTO billDTO) {
-        // ✅ Validate User
-        User user = userRepository.findById(billDTO.getUserId())
-                .orElseThrow(() ->
-                        new IllegalArgumentException("User with ID " + billDTO.getUserId() + " not found"));
+        return inTransactionWithRetry(() -> {
+            // ✅ Validate User
+            User user = userRepository.findById(billDTO.getUserId())
+                    .orElseThrow(() ->
+                            new IllegalArgumentException("User with ID " + billDTO.getUserId() + " not found"));
+
+            // ✅ Save bill, count it in the sales rollups and customer spend and return full object
+            Bill bill = billRepository.save(buildBill(user, billDTO));
+            salesRollupService.add(List.of(bill));
+            customerSpendService.add(List.of(bill));
+            itemPopularityService.recordSales(List.of(bill));
+            billEventPublisher.publishAfterCommit(BillEvent.CREATED, List.of(bill));
+            salesAnalyticsEngine.recordAfterCommit(List.of(bill));
+            billListVersion.bumpAfterCommit();
+            return bill;
+        });
+    }
+
+    // 🔹 Bulk ingestion: commit a chunk of bills in one transaction and report on each bill.
+    // A rejected bill does not affect the others; ownerId (if set) limits bills to that user.
+    public List<BillBatchResult> createBills(List<BillDTO> billDTOs, int firstIndex, Long ownerId) {
+        // A bill that fails after its stock was reserved rolls the chunk back; it is run again without that bill
+        Map<Integer, String> failed = new HashMap<>();
+        while (true) {
+            try {
+                return inTransactionWithRetry(() -> createChunk(billDTOs, firstIndex, ownerId, failed));
+            } catch (BillFailedException e) {
+                failed.put(e.index, e.getMessage());
+            }
+        }
+    }
+
+    private List<BillBatchResult> createChunk(List<BillDTO> billDTOs, int firstIndex, Long ownerId, Map<Integer, String> failed) {
+        // ✅ Load every customer of the chunk in one query
+        Set<Long> userIds = new HashSet<>();
+        for (BillDTO billDTO : billDTOs) {
+            if (billDTO != null && billDTO.getUserId() != null) {
+                userIds.add(billDTO.getUserId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+
+        List<BillBatchResult> results = new ArrayList<>(billDTOs.size());
+        List<Bill> bills = new ArrayList<>(billDTOs.size());
+        for (int i = 0; i < billDTOs.size(); i++) {
+            BillDTO billDTO = billDTOs.get(i);
+            try {
+                if (failed.containsKey(i)) {
+                    throw new IllegalArgumentException(failed.get(i));
+                }
+                if (billDTO == null || billDTO.getUserId() == null) {
+                    throw new IllegalArgumentException("A bill needs a user ID");
+                }
+                if (ownerId != null && !ownerId.equals(billDTO.getUserId())) {
+                    throw new IllegalArgumentException("Access denied: You can only create bills for yourself!");
+                }
+                User user = users.get(billDTO.getUserId());
+                if (user == null) {
+                    throw new IllegalArgumentException("User with ID " + billDTO.getUserId() + " not found");
+                }
+                bills.add(buildBill(user, billDTO));
+                results.add(null); // filled in once the bill has an ID
+            } catch (IllegalArgumentException e) {
+                bills.add(null);
+                results.add(BillBatchResult.rejected(firstIndex + i, e.getMessage()));
+            } catch (DataAccessException e) {
+                throw e; // not specific to this bill; lock failures are retried
+            } catch (RuntimeException e) {
+                // e.g. a total that overflows; some of its stock may already be reserved
+                throw new BillFailedException(i, e);
+            }
+        }
+
+        // ✅ Insert the whole chunk, then drop it from the persistence context to keep memory flat
+        List<Bill> created = bills.stream().filter(Objects::nonNull).toList();
+        billRepository.saveAll(created);
+        salesRollupService.add(created);
+        customerSpendService.add(created);
+        itemPopularityService.recordSales(created);
+        billEventPublisher.publishAfterCommit(BillEvent.CREATED, created);
+        salesAnalyticsEngine.recordAfterCommit(created);
+        if (!created.isEmpty()) {
+            billListVersion.bumpAfterCommit();
+        }
+        entityManager.flush();
+        for (int i = 0; i < bills.size(); i++) {
+            Bill bill = bills.get(i);
+            if (bill != null) {
+                results.set(i, BillBatchResult.created(firstIndex + i, bill.getId(), bill.getInvoiceNumber(), bill.getTotalAmount()));
+            }
+        }
+        entityManager.clear();
+        return results;
+    }
+
+    // All stock updates, bills and their lines are committed together (or not at all).
+    // Lock timeouts and deadlocks roll the work back and retry it with a growing backoff.
+    private <T> T inTransactionWithRetry(Supplier<T> work) {
+        for (int attempt = 0; ; attempt++) {
+            acquireCommitPermit();
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= lockRetries) {
+                    throw e;
+                }
+            } finally {
+                commitPermits.release();
+            }
+            backOff(attempt);
+        }
+    }
+
+    // Id blocks are reserved on a second pooled connection (see PooledIdGenerator), so bill
+    // transactions must never be able to hold every connection of the pool at once
+    private void acquireCommitPermit() {
+        try {
+            commitPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to commit a bill", e);
+        }
+    }
+
+    // Validates the lines, reserves their stock and prices them; the bill is not saved yet
+    private Bill buildBill(User user, BillDTO billDTO) {
+        if (billDTO.getItems() == null || billDTO.getItems().isEmpty()) {
+            throw new IllegalArgumentException("A bill must contain at least one item");
+        }
+
+        // ✅ Merge duplicate lines so each item is priced and deducted once
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (BillItemDTO itemDTO : billDTO.getItems()) {
+            if (itemDTO.getItemId() == null || itemDTO.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Each bill line needs an item ID and a positive quantity");
+            }
+            quantities.merge(itemDTO.getItemId(), itemDTO.getQuantity(), Math::addExact);
+        }
+
+        // ✅ Reserve stock for every line (see InventoryEngine) and check only those items for low stock
+        Map<Long, Item> items = inventoryEngine.reserve(quantities);
+        stockAlertService.checkAfterCommit(items.values());
 
         // ✅ Create bill base
         Bill bill = new Bill();
         bill.setUser(user);
         bill.setBillDate(LocalDateTime.now());
+        bill.setInvoiceNumber(invoiceNumberAllocator.next());
 
-        List<BillItem> billItems = new ArrayList<>();
-        double totalAmount = 0.0;
-
-        // ✅ Process each item
-        for (BillItemDTO itemDTO : billDTO.getItems()) {
-            Item item = itemRepository.findById(itemDTO.getItemId())
-                    .orElseThrow(() ->
-                            new IllegalArgumentException("Item with ID " + itemDTO.getItemId() + " not found"));
-
-            if (item.getStock() < itemDTO.getQuantity()) {
-                throw new IllegalArgumentException("Insufficient stock for item: " + item.getName());
-            }
+        List<BillItem> billItems = new ArrayList<>(quantities.size());
+        long totalAmountCents = 0;
 
-            // Deduct stock
-            item.setStock(item.getStock() - itemDTO.getQuantity());
-            itemRepository.save(item); // Save updated stock
+        // ✅ Price each line in memory, in exact cents
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Item item = items.get(line.getKey());
+            int quantity = line.getValue();
 
             BillItem billItem = new BillItem();
             billItem.setItem(item);
-            billItem.setQuantity(itemDTO.getQuantity());
-            billItem.setUnitPrice(item.getPrice());
+            billItem.setQuantity(quantity);
+            billItem.setUnitPriceCents(item.getPriceCents());
 
-            double subtotal = item.getPrice() * itemDTO.getQuantity();
-            billItem.setSubtotal(subtotal);
+            long subtotalCents = Money.multiply(item.getPriceCents(), quantity);
+            billItem.setSubtotalCents(subtotalCents);
             billItem.setBill(bill);
 
             billItems.add(billItem);
-            totalAmount += subtotal;
+            totalAmountCents = Money.add(totalAmountCents, subtotalCents);
         }
 
         bill.setItems(billItems);
-        bill.setTotalAmount(totalAmount);
+        bill.setTotalAmountCents(totalAmountCents);
+        return bill;
+    }
 
-        // ✅ Save bill and return full object
-        return billRepository.save(bill);
+    private void backOff(int attempt) {
+        long ceiling = retryBackoffMs << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying bill creation", e);
+        }
+    }
+
+    // A bill of a batch that failed for a reason other than validation
+    private static class BillFailedException extends RuntimeException {
+        private final int index;
+
+        BillFailedException(int index, RuntimeException cause) {
+            super("Could not create the bill: " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()), cause);
+            this.index = index;
+        }
     }
 }
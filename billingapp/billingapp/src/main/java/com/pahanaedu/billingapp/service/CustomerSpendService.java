@@ -0,0 +1,246 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.CustomerSpend;
+import com.pahanaedu.billingapp.repository.CustomerSpendRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps customer_spend (bill count, lifetime spend and last purchase per customer) in step with
+ * the bills. Like SalesRollupService, add counts new bills once they commit, in a short
+ * transaction of its own, and reverse runs inside the deleting transaction. A bill missed by a
+ * crash in between is corrected by the next repair. repair recomputes every customer from the live and archived bills and fixes the rows that
+ * drifted; bills created while it runs may be counted wrongly until the next run, so it is
+ * scheduled for a quiet hour.
+ */
+@Service
+public class CustomerSpendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSpendService.class);
+    private static final int ADD_ATTEMPTS = 3;
+
+    private static final String ADD = "UPDATE customer_spend SET bill_count = bill_count + ?, total_spent_cents = total_spent_cents + ?,"
+            + " last_purchase_at = CASE WHEN last_purchase_at IS NULL OR last_purchase_at < ? THEN ? ELSE last_purchase_at END"
+            + " WHERE user_id = ?";
+    private static final String SUBTRACT = "UPDATE customer_spend SET bill_count = bill_count - 1, total_spent_cents = total_spent_cents - ?"
+            + " WHERE user_id = ?";
+    private static final String DELETE_EMPTY = "DELETE FROM customer_spend WHERE user_id = ? AND bill_count <= 0";
+    private static final String INSERT = "INSERT INTO customer_spend (user_id, bill_count, total_spent_cents, last_purchase_at)"
+            + " VALUES (?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE customer_spend SET bill_count = ?, total_spent_cents = ?, last_purchase_at = ?"
+            + " WHERE user_id = ?";
+    private static final String DELETE = "DELETE FROM customer_spend WHERE user_id = ?";
+    // Latest other bill of the customer, on the bill(user_id, bill_date) index
+    private static final String LAST_LIVE = "SELECT MAX(bill_date) FROM bill WHERE user_id = ? AND id <> ?";
+    private static final String LAST_ARCHIVED = "SELECT MAX(bill_date) FROM archived_bill WHERE user_id = ? AND id <> ?";
+    private static final String SET_LAST = "UPDATE customer_spend SET last_purchase_at = ? WHERE user_id = ?";
+    private static final String[] TOTALS = {
+            "SELECT user_id, COUNT(*), SUM(total_amount_cents), MAX(bill_date) FROM bill WHERE user_id IS NOT NULL GROUP BY user_id",
+            "SELECT user_id, COUNT(*), SUM(total_amount_cents), MAX(bill_date) FROM archived_bill WHERE user_id IS NOT NULL GROUP BY user_id"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerSpendRepository customerSpendRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Spend of committed bills is applied after the bill's transaction, on a connection of its own
+    private final TransactionTemplate addTemplate;
+
+    public CustomerSpendService(JdbcTemplate jdbcTemplate,
+                                CustomerSpendRepository customerSpendRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerSpendRepository = customerSpendRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.addTemplate = new TransactionTemplate(transactionManager);
+        this.addTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Counts newly created bills once the transaction that saves them commits: one batch of
+    // updates, plus one batch of inserts for customers buying for the first time
+    public void add(List<Bill> bills) {
+        Map<Long, Total> totals = totals(bills);
+        if (!totals.isEmpty()) {
+            afterCommit(() -> apply(totals));
+        }
+    }
+
+    // Takes a deleted bill back out; call inside the transaction that deletes it, before the delete
+    public void reverse(Bill bill) {
+        if (bill.getUser() == null || bill.getUser().getId() == null) {
+            return;
+        }
+        Long userId = bill.getUser().getId();
+        if (jdbcTemplate.update(SUBTRACT, bill.getTotalAmountCents(), userId) == 0
+                || jdbcTemplate.update(DELETE_EMPTY, userId) > 0) {
+            return;
+        }
+        // Only the customer's latest bill moves the last purchase date back (compared to the second,
+        // as the column may be stored with less precision than the bill in memory)
+        CustomerSpend spend = customerSpendRepository.findById(userId).orElse(null);
+        if (spend != null && spend.getLastPurchaseAt() != null && !bill.getBillDate().truncatedTo(ChronoUnit.SECONDS)
+                .isBefore(spend.getLastPurchaseAt().truncatedTo(ChronoUnit.SECONDS))) {
+            jdbcTemplate.update(SET_LAST, latest(userId, bill.getId()), userId);
+        }
+    }
+
+    // Nightly consistency check; returns how many customers were corrected
+    @Scheduled(cron = "${app.customer-spend.repair-cron:0 15 3 * * *}")
+    public int repair() {
+        Map<Long, Total> expected = new HashMap<>();
+        for (String query : TOTALS) {
+            jdbcTemplate.query(query, rs -> {
+                Total total = expected.computeIfAbsent(rs.getLong(1), id -> new Total());
+                total.billCount += rs.getLong(2);
+                total.spentCents += rs.getLong(3);
+                LocalDateTime last = rs.getTimestamp(4).toLocalDateTime();
+                if (total.lastPurchaseAt == null || last.isAfter(total.lastPurchaseAt)) {
+                    total.lastPurchaseAt = last;
+                }
+            });
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (CustomerSpend spend : customerSpendRepository.findAll()) {
+            seen.add(spend.getUserId());
+            Total total = expected.get(spend.getUserId());
+            if (total == null) {
+                deletes.add(new Object[]{spend.getUserId()});
+            } else if (total.billCount != spend.getBillCount() || total.spentCents != spend.getTotalSpentCents()
+                    || !total.lastPurchaseAt.equals(spend.getLastPurchaseAt())) {
+                updates.add(new Object[]{total.billCount, total.spentCents, Timestamp.valueOf(total.lastPurchaseAt), spend.getUserId()});
+            }
+        }
+        expected.forEach((userId, total) -> {
+            if (!seen.contains(userId)) {
+                inserts.add(new Object[]{userId, total.billCount, total.spentCents, Timestamp.valueOf(total.lastPurchaseAt)});
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+            jdbcTemplate.batchUpdate(UPDATE, updates);
+            jdbcTemplate.batchUpdate(DELETE, deletes);
+        });
+        int repaired = inserts.size() + updates.size() + deletes.size();
+        if (repaired > 0) {
+            logger.info("Repaired customer spend of {} customers ({} added, {} corrected, {} removed)",
+                    repaired, inserts.size(), updates.size(), deletes.size());
+        }
+        return repaired;
+    }
+
+    public boolean isEmpty() {
+        return customerSpendRepository.count() == 0;
+    }
+
+    // Never throws: the bills are already committed
+    private void apply(Map<Long, Total> totals) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                addTemplate.executeWithoutResult(status -> upsert(totals));
+                return;
+            } catch (DuplicateKeyException e) {
+                // Another bill inserted one of the rows first; the next attempt updates it
+                if (attempt == ADD_ATTEMPTS) {
+                    logger.warn("Could not count bills in the spend of customers {}; the nightly repair will", totals.keySet(), e);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not count bills in the spend of customers {}; the nightly repair will", totals.keySet(), e);
+                return;
+            }
+        }
+    }
+
+    private void upsert(Map<Long, Total> totals) {
+        List<Object[]> updates = new ArrayList<>(totals.size());
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((userId, total) -> {
+            Timestamp last = Timestamp.valueOf(total.lastPurchaseAt);
+            updates.add(new Object[]{total.billCount, total.spentCents, last, last, userId});
+            rows.add(new Object[]{userId, total.billCount, total.spentCents, last});
+        });
+        int[] updated = jdbcTemplate.batchUpdate(ADD, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(rows.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+    }
+
+    private Timestamp latest(Long userId, Long excludedBillId) {
+        Timestamp latest = null;
+        for (String query : new String[]{LAST_LIVE, LAST_ARCHIVED}) {
+            Timestamp value = jdbcTemplate.queryForObject(query, Timestamp.class, userId, excludedBillId);
+            if (value != null && (latest == null || value.after(latest))) {
+                latest = value;
+            }
+        }
+        return latest;
+    }
+
+    // Per customer in ID order, so concurrent updates lock shared rows in the same order
+    // and cannot deadlock each other
+    private static Map<Long, Total> totals(List<Bill> bills) {
+        Map<Long, Total> totals = new TreeMap<>();
+        for (Bill bill : bills) {
+            if (bill.getUser() == null || bill.getUser().getId() == null) {
+                continue;
+            }
+            Total total = totals.computeIfAbsent(bill.getUser().getId(), id -> new Total());
+            total.billCount++;
+            total.spentCents += bill.getTotalAmountCents();
+            if (total.lastPurchaseAt == null || bill.getBillDate().isAfter(total.lastPurchaseAt)) {
+                total.lastPurchaseAt = bill.getBillDate();
+            }
+        }
+        return totals;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Total {
+        private long billCount;
+        private long spentCents;
+        private LocalDateTime lastPurchaseAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.BillSummary;
+import com.pahanaedu.billingapp.dto.DashboardStats;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dashboard figures computed with aggregate queries instead of loading bills, items and users.
+ * The queries run one after another in a single read-only transaction, so a dashboard uses one
+ * pooled connection however many are open at once.
+ */
+@Service
+public class DashboardService {
+
+    private static final int RECENT_BILLS = 5;
+    private static final String BILL_TOTALS = "COUNT(b), COALESCE(SUM(b.totalAmountCents), 0)";
+
+    private final BillService billService;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DashboardService(BillService billService, ItemRepository itemRepository, UserRepository userRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.billService = billService;
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    // userId limits the bill figures to one customer (null for all); includeUsers adds the user count
+    public DashboardStats getStats(Long userId, boolean includeUsers) {
+        return readOnly.execute(status -> {
+            long[] liveTotals = billTotals(BILL_TOTALS, "Bill b", "b.user.id", userId);
+            long[] archivedTotals = billTotals(BILL_TOTALS + ", COALESCE(SUM(b.itemsSold), 0)",
+                    "ArchivedBill b", "b.userId", userId);
+
+            DashboardStats stats = new DashboardStats();
+            stats.setTotalBills(liveTotals[0] + archivedTotals[0]);
+            stats.setTotalAmountCents(liveTotals[1] + archivedTotals[1]);
+            stats.setItemsSold(itemsSold(userId) + archivedTotals[2]);
+            stats.setTotalItems(itemRepository.count());
+            stats.setTotalUsers(includeUsers ? userRepository.count() : null);
+            stats.setRecentBills(billService.getBillPage(userId, null, null, null, RECENT_BILLS).getBills());
+            return stats;
+        });
+    }
+
+    // {count, sum of total_amount_cents, ...} in one pass over the bills
+    private long[] billTotals(String select, String from, String userColumn, Long userId) {
+        String jpql = "SELECT " + select + " FROM " + from
+                + (userId != null ? " WHERE " + userColumn + " = :userId" : "");
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        Object[] row = query.getSingleResult();
+        long[] totals = new long[row.length];
+        for (int i = 0; i < row.length; i++) {
+            totals[i] = ((Number) row[i]).longValue();
+        }
+        return totals;
+    }
+
+    // Live bills only; archived bills carry their own items_sold
+    private long itemsSold(Long userId) {
+        String jpql = "SELECT COALESCE(SUM(bi.quantity), 0) FROM BillItem bi"
+                + (userId != null ? " WHERE bi.bill.user.id = :userId" : "");
+        TypedQuery<Number> query = entityManager.createQuery(jpql, Number.class);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        return query.getSingleResult().longValue();
+    }
+}
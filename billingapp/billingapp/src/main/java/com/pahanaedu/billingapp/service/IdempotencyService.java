@@ -0,0 +1,136 @@
+package com.pahanaedu.billingapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, expiring in-memory store of results keyed by a client idempotency key.
+ * The first request with a key runs the action; repeats (including concurrent ones)
+ * get that same result without running it again. Failed actions are forgotten so they can be retried.
+ */
+@Service
+public class IdempotencyService {
+
+    private final ObjectMapper objectMapper;
+    // Insertion order equals expiry order because every entry gets the same TTL; a replaced key
+    // is removed and put again, so each key appears once, at the position of its current entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    // Guards entries; never held while an action runs or a repeat waits for its result
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-minutes:60}") long ttlMinutes,
+                              @Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Run the action once per key. Reusing a key for a different request body
+     * throws KeyReusedException.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object request, Supplier<T> action) {
+        String fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+        Entry mine = new Entry(fingerprint, now + ttlMillis);
+        Entry existing;
+        lock.lock();
+        try {
+            existing = entries.get(key);
+            if (existing == null || existing.isExpired(now)) {
+                entries.remove(key);
+                entries.put(key, mine);
+                existing = mine;
+                evict(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (existing != mine) {
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new KeyReusedException("Idempotency key was already used for a different request");
+            }
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            T result = action.get();
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                entries.remove(key, mine);
+            } finally {
+                lock.unlock();
+            }
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted: " + e.getOriginalMessage());
+        }
+    }
+
+    // Drops expired entries, then the oldest completed ones while over capacity. Entries still
+    // running are kept, or a repeat of that request would run the action a second time.
+    // Call with the lock held.
+    private void evict(long now) {
+        Iterator<Entry> oldestFirst = entries.values().iterator();
+        while (oldestFirst.hasNext()) {
+            Entry entry = oldestFirst.next();
+            boolean stale = entry.isExpired(now);
+            if (!stale && entries.size() <= maxEntries) {
+                return;
+            }
+            if (stale || entry.result.isDone()) {
+                oldestFirst.remove();
+            }
+        }
+    }
+
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
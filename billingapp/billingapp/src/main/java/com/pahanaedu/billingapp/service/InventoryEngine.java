@@ -0,0 +1,31 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.Item;
+
+import java.util.Map;
+
+/**
+ * Deducts stock for the lines of a bill inside the bill's transaction.
+ * Selected with app.inventory.engine (jpa or ledger).
+ */
+public interface InventoryEngine {
+
+    /**
+     * Reserve the given quantities (keyed by item ID) and return the items keyed by ID.
+     * Throws IllegalArgumentException for unknown items or insufficient stock.
+     */
+    Map<Long, Item> reserve(Map<Long, Integer> quantities);
+
+    /**
+     * Called after an item's stock was edited directly (admin forms, item API)
+     */
+    default void stockChanged(Long itemId) {
+    }
+
+    /**
+     * Stock left for sale, including reservations made earlier in the current transaction
+     */
+    default int availableStock(Item item) {
+        return item.getStock();
+    }
+}
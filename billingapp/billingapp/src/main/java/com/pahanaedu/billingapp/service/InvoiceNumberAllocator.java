@@ -0,0 +1,105 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.PooledIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out invoice numbers such as PE-2026-000123, counting per branch and year.
+ * Each instance reserves a block of numbers from the id_generator table with a
+ * compare-and-set update in its own short transaction and serves the block from memory.
+ * Numbers are near gap-free: a rolled-back bill, or the unused rest of a block at shutdown,
+ * leaves a gap. A block size of 1 trades throughput for fewer gaps.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+    private static final String SELECT_NEXT = "SELECT " + PooledIdGenerator.VALUE_COLUMN + " FROM " + PooledIdGenerator.TABLE
+            + " WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ?";
+    private static final String INSERT_SEGMENT = "INSERT INTO " + PooledIdGenerator.TABLE + " (" + PooledIdGenerator.SEGMENT_COLUMN
+            + ", " + PooledIdGenerator.VALUE_COLUMN + ") VALUES (?, ?)";
+    private static final String ADVANCE = "UPDATE " + PooledIdGenerator.TABLE + " SET " + PooledIdGenerator.VALUE_COLUMN + " = ?"
+            + " WHERE " + PooledIdGenerator.SEGMENT_COLUMN + " = ? AND " + PooledIdGenerator.VALUE_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reservationTransaction;
+    private final String branchCode;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public InvoiceNumberAllocator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.invoice.branch-code:PE}") String branchCode,
+                                  @Value("${app.invoice.block-size:20}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Reservations commit on their own, so a bill rollback never hands a block out twice
+        this.reservationTransaction = new TransactionTemplate(transactionManager);
+        this.reservationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.branchCode = branchCode;
+        this.blockSize = blockSize;
+    }
+
+    public String next() {
+        return next(LocalDate.now().getYear());
+    }
+
+    public String next(int year) {
+        String segment = "invoice:" + branchCode + ":" + year;
+        Block block = blocks.computeIfAbsent(segment, s -> new Block());
+        long number;
+        // A lock rather than synchronized, so virtual-thread workers are not pinned during the reservation
+        block.lock.lock();
+        try {
+            if (block.next >= block.end) {
+                block.next = reserve(segment);
+                block.end = block.next + blockSize;
+            }
+            number = block.next++;
+        } finally {
+            block.lock.unlock();
+        }
+        return String.format("%s-%d-%06d", branchCode, year, number);
+    }
+
+    // Returns the first number of a freshly reserved block
+    private long reserve(String segment) {
+        while (true) {
+            Long start = reservationTransaction.execute(status -> tryReserve(segment));
+            if (start != null) {
+                return start;
+            }
+        }
+    }
+
+    private Long tryReserve(String segment) {
+        List<Long> current = jdbcTemplate.queryForList(SELECT_NEXT, Long.class, segment);
+        if (current.isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT_SEGMENT, segment, 1L + blockSize);
+                return 1L;
+            } catch (DuplicateKeyException e) {
+                // Another instance created the segment first
+                return null;
+            }
+        }
+        long start = current.get(0);
+        return jdbcTemplate.update(ADVANCE, start + blockSize, segment, start) == 1 ? start : null;
+    }
+
+    private static class Block {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+    }
+}
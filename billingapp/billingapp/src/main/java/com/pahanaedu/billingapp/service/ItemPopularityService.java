@@ -0,0 +1,264 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import com.pahanaedu.billingapp.model.DailySalesRollup;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.ItemPopularity;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.repository.ItemPopularityRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranks items by how fast they sell. Committed sales bump in-memory per-item counters; a
+ * background job folds the counters into item_popularity as exponentially decayed scores and
+ * recomputes the featured top-K, which the homepage reads from memory. Untouched scores all decay
+ * at the same rate and keep their order, so after the first refresh only the previous leaders and
+ * the items sold since are ranked; the table is read in full once per start.
+ * Assumes a single application instance flushes the scores.
+ */
+@Service
+public class ItemPopularityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemPopularityService.class);
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    private final ItemPopularityRepository popularityRepository;
+    private final ItemRepository itemRepository;
+    private final DailySalesRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double halfLifeHours;
+    private final int topK;
+    // Units sold since the last flush
+    private final ConcurrentHashMap<Long, LongAdder> sold = new ConcurrentHashMap<>();
+    private volatile List<Item> featured = List.of();
+    // Best 2K scores as of the last refresh, best first; null until the table has been scanned
+    private List<ItemPopularity> leaders;
+    private boolean seeded;
+    // Scores are seeded from the rollups, so nothing runs before SalesRollupBackfill has filled them
+    private volatile boolean started;
+
+    public ItemPopularityService(ItemPopularityRepository popularityRepository,
+                                 ItemRepository itemRepository,
+                                 DailySalesRollupRepository rollupRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.featured.half-life-hours:72}") double halfLifeHours,
+                                 @Value("${app.featured.top-k:24}") int topK) {
+        this.popularityRepository = popularityRepository;
+        this.itemRepository = itemRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.halfLifeHours = halfLifeHours;
+        this.topK = topK;
+    }
+
+    // Counts the bills' lines once their transaction commits; rolled-back bills are not counted
+    public void recordSales(List<Bill> bills) {
+        Map<Long, Long> quantities = new HashMap<>();
+        for (Bill bill : bills) {
+            for (BillItem billItem : bill.getItems()) {
+                if (billItem.getItem() != null && billItem.getItem().getId() != null) {
+                    quantities.merge(billItem.getItem().getId(), (long) billItem.getQuantity(), Long::sum);
+                }
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(quantities);
+                }
+            });
+        } else {
+            count(quantities);
+        }
+    }
+
+    // Featured items, most popular first; never touches the database
+    public List<Item> getFeaturedItems() {
+        return featured;
+    }
+
+    // Fires after every CommandLineRunner, including the rollup backfill
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        started = true;
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.featured.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!started) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!seeded && popularityRepository.count() == 0) {
+                seedFromRollups(now);
+            }
+            seeded = true;
+            List<ItemPopularity> changed = flush(now);
+            leaders = leaders == null ? scanLeaders(now) : best(leaders, changed, now);
+        });
+        featured = rank();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> flush(LocalDateTime.now()));
+        } catch (Exception e) {
+            // Only the last interval's sales are lost; the scores are approximate anyway
+            logger.warn("Could not flush item popularity on shutdown", e);
+        }
+    }
+
+    private void count(Map<Long, Long> quantities) {
+        quantities.forEach((itemId, quantity) -> sold.computeIfAbsent(itemId, id -> new LongAdder()).add(quantity));
+    }
+
+    // Decays each touched score to now and adds the units sold since the last flush; returns the touched scores
+    private List<ItemPopularity> flush(LocalDateTime now) {
+        Map<Long, Long> deltas = new HashMap<>();
+        sold.forEach((itemId, adder) -> {
+            // Sales racing with the reset may be dropped, which the ranking tolerates
+            long quantity = adder.sumThenReset();
+            if (quantity > 0) {
+                deltas.put(itemId, quantity);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ItemPopularity> scores = new HashMap<>();
+        for (ItemPopularity popularity : popularityRepository.findAllById(deltas.keySet())) {
+            scores.put(popularity.getItemId(), popularity);
+        }
+        List<ItemPopularity> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((itemId, quantity) -> {
+            ItemPopularity popularity = scores.get(itemId);
+            if (popularity == null) {
+                changed.add(new ItemPopularity(itemId, quantity, now));
+            } else {
+                popularity.setScore(decayed(popularity, now) + quantity);
+                popularity.setScoredAt(now);
+                changed.add(popularity);
+            }
+        });
+        popularityRepository.saveAll(changed);
+        return changed;
+    }
+
+    // First start: score the recent daily sales rollups (noon of each day) instead of starting cold.
+    // The rollups already hold the sales counted so far, so the counters start over.
+    private void seedFromRollups(LocalDateTime now) {
+        sold.values().forEach(LongAdder::reset);
+        LocalDate from = now.toLocalDate().minusDays((long) Math.ceil(halfLifeHours * 10 / 24));
+        Map<Long, Double> seeded = new HashMap<>();
+        for (DailySalesRollup rollup : rollupRepository.findByDayGreaterThanEqual(from)) {
+            seeded.merge(rollup.getItemId(), rollup.getQuantity() * decay(rollup.getDay().atTime(12, 0), now), Double::sum);
+        }
+        List<ItemPopularity> rows = new ArrayList<>(seeded.size());
+        seeded.forEach((itemId, score) -> rows.add(new ItemPopularity(itemId, score, now)));
+        popularityRepository.saveAll(rows);
+    }
+
+    // Reads every score once, a page at a time, keeping only the best 2K
+    private List<ItemPopularity> scanLeaders(LocalDateTime now) {
+        int limit = topK * 2;
+        PriorityQueue<ItemPopularity> best = new PriorityQueue<>(Comparator.comparingDouble(
+                (ItemPopularity popularity) -> decayed(popularity, now)));
+        Pageable page = PageRequest.of(0, SCAN_PAGE_SIZE, Sort.by("itemId"));
+        Slice<ItemPopularity> slice;
+        do {
+            slice = popularityRepository.findAllBy(page);
+            for (ItemPopularity popularity : slice) {
+                best.add(popularity);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            page = slice.nextPageable();
+        } while (slice.hasNext());
+        return best(List.copyOf(best), List.of(), now);
+    }
+
+    // The previous leaders updated with the touched scores, best 2K first
+    private List<ItemPopularity> best(List<ItemPopularity> leaders, List<ItemPopularity> changed, LocalDateTime now) {
+        Map<Long, ItemPopularity> candidates = new HashMap<>();
+        leaders.forEach(popularity -> candidates.put(popularity.getItemId(), popularity));
+        changed.forEach(popularity -> candidates.put(popularity.getItemId(), popularity));
+        return candidates.values().stream()
+                .sorted(Comparator.comparingDouble((ItemPopularity popularity) -> decayed(popularity, now)).reversed())
+                .limit(topK * 2L)
+                .toList();
+    }
+
+    // Top-K in-stock items among the leaders, topped up with the newest in-stock items
+    private List<Item> rank() {
+        List<Long> ranked = leaders.stream().map(ItemPopularity::getItemId).toList();
+
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(ranked)) {
+            items.put(item.getId(), item);
+        }
+        // Deleted items give their place up to the next score that sells
+        leaders = leaders.stream().filter(popularity -> items.containsKey(popularity.getItemId())).toList();
+        List<Item> top = new ArrayList<>(topK);
+        Set<Long> added = new HashSet<>();
+        for (Long itemId : ranked) {
+            Item item = items.get(itemId);
+            if (item != null && item.getStock() > 0 && top.size() < topK && added.add(itemId)) {
+                top.add(item);
+            }
+        }
+        if (top.size() < topK) {
+            for (Item item : itemRepository.findByStockGreaterThanOrderByIdDesc(0, PageRequest.of(0, topK)).getContent()) {
+                if (top.size() < topK && added.add(item.getId())) {
+                    top.add(item);
+                }
+            }
+        }
+        return List.copyOf(top);
+    }
+
+    private double decayed(ItemPopularity popularity, LocalDateTime now) {
+        return popularity.getScore() * decay(popularity.getScoredAt(), now);
+    }
+
+    private double decay(LocalDateTime since, LocalDateTime now) {
+        double hours = Math.max(0, Duration.between(since, now).toMillis()) / 3_600_000.0;
+        return Math.pow(0.5, hours / halfLifeHours);
+    }
+}
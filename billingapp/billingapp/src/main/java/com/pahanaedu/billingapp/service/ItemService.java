@@ -13,12 +13,21 @@ public class ItemService {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
     public List<Item> getAllItems() {
         return itemRepository.findAll();
     }
 
     public Item saveItem(Item item) {
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        inventoryEngine.stockChanged(saved.getId());
+        stockAlertService.stockChanged(saved);
+        return saved;
     }
 
     public Item getItemById(Long id) {
@@ -27,6 +36,8 @@ public class ItemService {
 
     public void deleteItem(Long id) {
         itemRepository.deleteById(id);
+        inventoryEngine.stockChanged(id);
+        stockAlertService.itemDeleted(id);
     }
 }
 
@@ -0,0 +1,47 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Default engine: stock lives in the item table and is decremented under a row lock
+@Service
+@ConditionalOnProperty(name = "app.inventory.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaInventoryEngine implements InventoryEngine {
+
+    private final ItemRepository itemRepository;
+
+    public JpaInventoryEngine(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public Map<Long, Item> reserve(Map<Long, Integer> quantities) {
+        // Load and lock every item in one query, always in id order
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllByIdForUpdate(quantities.keySet())) {
+            items.put(item.getId(), item);
+        }
+
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Item item = items.get(line.getKey());
+            if (item == null) {
+                throw new IllegalArgumentException("Item with ID " + line.getKey() + " not found");
+            }
+            if (item.getStock() < line.getValue()) {
+                throw new IllegalArgumentException("Insufficient stock for item: " + item.getName());
+            }
+        }
+
+        // Deduct stock only once every line is known to fit (flushed as a batched UPDATE on commit)
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Item item = items.get(line.getKey());
+            item.setStock(item.getStock() - line.getValue());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,288 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.StockMovement;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.StockMovementRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stock ledger for hot items. Reservations are short in-memory counter updates;
+ * each sale is journaled as a StockMovement in the bill's transaction and a background
+ * flusher folds the movements into the item table. After a crash the counters are rebuilt
+ * from item.stock plus the movements that were not flushed yet.
+ * A direct stock edit marks the item's counter for a reload. The reload subtracts the stock
+ * still held by bills that have not committed yet, so those reservations are not lost.
+ * Assumes a single application instance owns the ledger.
+ */
+@Service
+@ConditionalOnProperty(name = "app.inventory.engine", havingValue = "ledger")
+public class LedgerInventoryEngine implements InventoryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerInventoryEngine.class);
+
+    private final ItemRepository itemRepository;
+    private final StockMovementRepository movementRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Counters are (re)loaded on a connection of their own, so the read sees every committed bill
+    private final TransactionTemplate loadTemplate;
+    private final int flushBatchSize;
+    private final ConcurrentHashMap<Long, ItemLedger> ledgers = new ConcurrentHashMap<>();
+
+    public LedgerInventoryEngine(ItemRepository itemRepository,
+                                 StockMovementRepository movementRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.inventory.flush-batch-size:500}") int flushBatchSize) {
+        this.itemRepository = itemRepository;
+        this.movementRepository = movementRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate.setReadOnly(true);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    @Override
+    public Map<Long, Item> reserve(Map<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Ledger reservations must run inside the bill transaction");
+        }
+
+        // Items are only read for names and prices; their rows are not locked or updated here
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(quantities.keySet())) {
+            items.put(item.getId(), item);
+        }
+
+        List<ItemLedger> taken = new ArrayList<>(quantities.size());
+        List<Integer> quantitiesTaken = new ArrayList<>(quantities.size());
+        List<StockMovement> movements = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Item item = items.get(line.getKey());
+            if (item == null) {
+                complete(taken, quantitiesTaken, false, false);
+                throw new IllegalArgumentException("Item with ID " + line.getKey() + " not found");
+            }
+
+            ItemLedger ledger = ledger(item.getId());
+            if (!tryTake(ledger, item.getId(), line.getValue())) {
+                complete(taken, quantitiesTaken, false, false);
+                throw new IllegalArgumentException("Insufficient stock for item: " + item.getName());
+            }
+            taken.add(ledger);
+            quantitiesTaken.add(line.getValue());
+            movements.add(new StockMovement(item.getId(), -line.getValue()));
+        }
+
+        // The stock stays in flight until the bill completes, and is given back if it does not commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                for (ItemLedger ledger : taken) {
+                    synchronized (ledger) {
+                        ledger.committing++;
+                    }
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                complete(taken, quantitiesTaken, committing, status == STATUS_COMMITTED);
+            }
+        });
+
+        movementRepository.saveAll(movements);
+        return items;
+    }
+
+    @Override
+    public void stockChanged(Long itemId) {
+        // Reload from the database on next use, once the edit is visible
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markForReload(itemId);
+                }
+            });
+        } else {
+            markForReload(itemId);
+        }
+    }
+
+    // Stock the ledger currently allows to be sold
+    public int availableStock(Long itemId) {
+        ItemLedger ledger = ledger(itemId);
+        while (true) {
+            load(ledger, itemId);
+            synchronized (ledger) {
+                if (ledger.loaded) {
+                    return ledger.available;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int availableStock(Item item) {
+        return availableStock(item.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        int flushed = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> flushBatch());
+            flushed += batch;
+        } while (batch == flushBatchSize);
+
+        if (flushed > 0) {
+            logger.debug("Flushed {} stock movements to the item table", flushed);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Movements stay journaled and are applied after restart
+            logger.warn("Could not flush stock movements on shutdown", e);
+        }
+    }
+
+    private int flushBatch() {
+        List<StockMovement> batch = movementRepository.findByOrderByIdAsc(PageRequest.of(0, flushBatchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Net the deltas per item and apply them in id order
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (StockMovement movement : batch) {
+            deltas.merge(movement.getItemId(), movement.getQuantity(), Integer::sum);
+        }
+        deltas.forEach((itemId, delta) -> {
+            if (delta != 0) {
+                itemRepository.adjustStock(itemId, delta);
+            }
+        });
+        movementRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    private ItemLedger ledger(Long itemId) {
+        return ledgers.computeIfAbsent(itemId, id -> new ItemLedger());
+    }
+
+    private void markForReload(Long itemId) {
+        ItemLedger ledger = ledger(itemId);
+        synchronized (ledger) {
+            ledger.loaded = false;
+            ledger.edits++;
+        }
+    }
+
+    private boolean tryTake(ItemLedger ledger, Long itemId, int quantity) {
+        while (true) {
+            load(ledger, itemId);
+            synchronized (ledger) {
+                if (!ledger.loaded) {
+                    continue; // edited again while loading
+                }
+                if (ledger.available < quantity) {
+                    return false;
+                }
+                ledger.available -= quantity;
+                ledger.inFlight += quantity;
+                return true;
+            }
+        }
+    }
+
+    // Reads the stock outside the ledger's lock and publishes it only if no bill of the item
+    // committed or rolled back meanwhile; otherwise the read may or may not include that bill
+    private void load(ItemLedger ledger, Long itemId) {
+        while (true) {
+            long completions;
+            long edits;
+            synchronized (ledger) {
+                if (ledger.loaded) {
+                    return;
+                }
+                completions = ledger.completions;
+                edits = ledger.edits;
+                if (ledger.committing > 0) {
+                    Thread.yield();
+                    continue;
+                }
+            }
+
+            long stock = loadTemplate.execute(status ->
+                    itemRepository.findStockIncludingPendingMovements(itemId).orElse(0L));
+
+            synchronized (ledger) {
+                if (ledger.loaded) {
+                    return;
+                }
+                if (ledger.committing == 0 && ledger.completions == completions && ledger.edits == edits) {
+                    ledger.available = (int) stock - ledger.inFlight;
+                    ledger.loaded = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void complete(List<ItemLedger> taken, List<Integer> quantities, boolean committing, boolean committed) {
+        for (int i = 0; i < taken.size(); i++) {
+            ItemLedger ledger = taken.get(i);
+            synchronized (ledger) {
+                ledger.inFlight -= quantities.get(i);
+                if (committing) {
+                    ledger.committing--;
+                }
+                if (!committed) {
+                    ledger.available += quantities.get(i);
+                }
+                ledger.completions++;
+            }
+        }
+    }
+
+    // Stock of one item; every field is guarded by the instance's monitor
+    private static final class ItemLedger {
+        int available;
+        // False until read from the database, and again after a direct stock edit
+        boolean loaded;
+        // Taken by bills that have not completed yet; not in the database until they commit
+        int inFlight;
+        // Bills of this item between beforeCommit and afterCompletion, whose movements may or may not be visible
+        int committing;
+        long completions;
+        long edits;
+    }
+}
@@ -0,0 +1,451 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.BillSnapshot;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory, column-oriented copy of every bill line (live and archived) for ad-hoc admin
+ * analytics. Each fact is one slot in primitive arrays (epoch day, item, customer, category code,
+ * units, cents); categories are dictionary-encoded. The columns are loaded once from the database
+ * and then kept current from committed bills, so queries never touch bill_item. Group-by queries
+ * are parallel fork/join scans over row ranges.
+ */
+@Service
+public class SalesAnalyticsEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsEngine.class);
+
+    public enum Dimension { DAY, WEEK, MONTH, CATEGORY, ITEM, CUSTOMER }
+
+    // Bill lines per fork/join leaf
+    private static final int SCAN_CHUNK = 1 << 15;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    // Bills appended per write-lock hold during the initial load
+    private static final int LOAD_BATCH = 1000;
+    private static final String LIVE_LINES = "SELECT b.id, b.bill_date, b.user_id, bi.item_id, i.category, bi.quantity, bi.subtotal_cents"
+            + " FROM bill b JOIN bill_item bi ON bi.bill_id = b.id LEFT JOIN item i ON i.id = bi.item_id ORDER BY b.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BillArchiveService billArchiveService;
+    private final ItemRepository itemRepository;
+    private final boolean preload;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    // Appends and deletes take the write lock; scans share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private long[] itemIds = new long[INITIAL_CAPACITY];
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    // Bill id -> {first row, line count}; a bill's lines are contiguous
+    private final Map<Long, int[]> bills = new HashMap<>();
+    // Bills deleted before the initial load reached them
+    private final Set<Long> tombstones = new HashSet<>();
+    // Code 0 is "no category"
+    private final List<String> dictionary = new ArrayList<>(List.of(""));
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    public SalesAnalyticsEngine(JdbcTemplate jdbcTemplate,
+                                BillArchiveService billArchiveService,
+                                ItemRepository itemRepository,
+                                @Value("${app.analytics.preload:true}") boolean preload) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.billArchiveService = billArchiveService;
+        this.itemRepository = itemRepository;
+        this.preload = preload;
+    }
+
+    // Loads the columns in the background so the first query does not wait
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (preload) {
+            Thread.ofVirtual().name("analytics-load").start(this::ensureLoaded);
+        }
+    }
+
+    // Adds the bills once their transaction commits
+    public void recordAfterCommit(List<Bill> created) {
+        List<Fact> facts = new ArrayList<>();
+        for (Bill bill : created) {
+            int day = (int) bill.getBillDate().toLocalDate().toEpochDay();
+            long userId = bill.getUser() != null && bill.getUser().getId() != null ? bill.getUser().getId() : 0;
+            for (BillItem billItem : bill.getItems()) {
+                Item item = billItem.getItem();
+                facts.add(new Fact(bill.getId(), day, userId, item != null && item.getId() != null ? item.getId() : 0,
+                        item != null ? item.getCategory() : null, billItem.getQuantity(), billItem.getSubtotalCents()));
+            }
+        }
+        afterCommit(() -> append(facts));
+    }
+
+    // Drops a deleted bill's lines once the delete commits
+    public void removeAfterCommit(Long billId) {
+        afterCommit(() -> remove(billId));
+    }
+
+    public List<Map<String, Object>> query(Query query) {
+        if (query.groupBy.size() > 2) {
+            throw new IllegalArgumentException("Group by at most two dimensions");
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int categoryCode = 0;
+            if (query.category != null) {
+                Integer code = codes.get(query.category);
+                if (code == null) {
+                    return List.of();
+                }
+                categoryCode = code;
+            }
+            Scan scan = new Scan(query, categoryCode, 0, size);
+            Map<Key, long[]> totals = size <= SCAN_CHUNK ? scan.compute() : ForkJoinPool.commonPool().invoke(scan);
+            return rows(query, totals);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", loaded);
+            stats.put("lines", size - deleted.cardinality());
+            stats.put("bills", bills.size());
+            stats.put("categories", dictionary.size() - 1);
+            // int, long, long, int, int, long per line
+            stats.put("columnBytes", (long) days.length * (4 + 8 + 8 + 4 + 4 + 8));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                long started = System.currentTimeMillis();
+                load();
+                lock.writeLock().lock();
+                try {
+                    loaded = true;
+                    tombstones.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.info("Loaded {} bill lines into the analytics columns in {} ms", size, System.currentTimeMillis() - started);
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Bills committed while this runs arrive through recordAfterCommit too; append skips duplicates
+    private void load() {
+        List<Fact> batch = new ArrayList<>();
+        long[] lastBill = {-1};
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(LIVE_LINES);
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            long billId = rs.getLong(1);
+            if (billId != lastBill[0] && batch.size() >= LOAD_BATCH) {
+                append(batch);
+                batch.clear();
+            }
+            lastBill[0] = billId;
+            LocalDateTime billDate = rs.getTimestamp(2).toLocalDateTime();
+            batch.add(new Fact(billId, (int) billDate.toLocalDate().toEpochDay(), rs.getLong(3), rs.getLong(4),
+                    rs.getString(5), rs.getInt(6), rs.getLong(7)));
+        });
+        append(batch);
+        batch.clear();
+
+        // Archived snapshots have no category; use the item's current one
+        Map<Long, String> itemCategories = new HashMap<>();
+        for (Item item : itemRepository.findAll()) {
+            itemCategories.put(item.getId(), item.getCategory());
+        }
+        billArchiveService.forEachSnapshot(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(9999, 1, 1, 0, 0), snapshot -> {
+            int day = (int) snapshot.getBillDate().toLocalDate().toEpochDay();
+            long userId = snapshot.getUserId() != null ? snapshot.getUserId() : 0;
+            for (BillSnapshot.Line line : snapshot.getItems()) {
+                long itemId = line.getItemId() != null ? line.getItemId() : 0;
+                batch.add(new Fact(snapshot.getId(), day, userId, itemId, itemCategories.get(itemId),
+                        line.getQuantity(), line.getSubtotalCents()));
+            }
+            if (batch.size() >= LOAD_BATCH) {
+                append(batch);
+                batch.clear();
+            }
+        });
+        append(batch);
+    }
+
+    // facts must list each bill's lines consecutively
+    private void append(List<Fact> facts) {
+        if (facts.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int i = 0;
+            while (i < facts.size()) {
+                long billId = facts.get(i).billId;
+                int end = i;
+                while (end < facts.size() && facts.get(end).billId == billId) {
+                    end++;
+                }
+                if (!bills.containsKey(billId) && !tombstones.contains(billId)) {
+                    ensureCapacity(size + end - i);
+                    bills.put(billId, new int[]{size, end - i});
+                    for (int f = i; f < end; f++) {
+                        Fact fact = facts.get(f);
+                        days[size] = fact.day;
+                        itemIds[size] = fact.itemId;
+                        userIds[size] = fact.userId;
+                        categories[size] = encode(fact.category);
+                        quantities[size] = fact.quantity;
+                        amounts[size] = fact.amountCents;
+                        size++;
+                    }
+                }
+                i = end;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long billId) {
+        lock.writeLock().lock();
+        try {
+            int[] rows = bills.remove(billId);
+            if (rows != null) {
+                deleted.set(rows[0], rows[0] + rows[1]);
+            } else if (!loaded) {
+                tombstones.add(billId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int encode(String category) {
+        if (category == null || category.isEmpty()) {
+            return 0;
+        }
+        return codes.computeIfAbsent(category, c -> {
+            dictionary.add(c);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= days.length) {
+            return;
+        }
+        int capacity = Math.max(needed, days.length * 2);
+        days = Arrays.copyOf(days, capacity);
+        itemIds = Arrays.copyOf(itemIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+    }
+
+    private List<Map<String, Object>> rows(Query query, Map<Key, long[]> totals) {
+        List<Map.Entry<Key, long[]>> entries = new ArrayList<>(totals.entrySet());
+        // Time series in time order, everything else by revenue
+        if (!query.groupBy.isEmpty() && isTime(query.groupBy.get(0))) {
+            entries.sort(Comparator.comparingLong((Map.Entry<Key, long[]> e) -> e.getKey().first)
+                    .thenComparing(e -> -e.getValue()[1]));
+        } else {
+            entries.sort(Comparator.comparingLong(e -> -e.getValue()[1]));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<Key, long[]> entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int d = 0; d < query.groupBy.size(); d++) {
+                Dimension dimension = query.groupBy.get(d);
+                row.put(dimension.name().toLowerCase(), label(dimension, d == 0 ? entry.getKey().first : entry.getKey().second));
+            }
+            row.put("quantity", entry.getValue()[0]);
+            row.put("revenue", Money.toMajor(entry.getValue()[1]));
+            row.put("lines", entry.getValue()[2]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Object label(Dimension dimension, long key) {
+        return switch (dimension) {
+            case DAY, WEEK -> LocalDate.ofEpochDay(key);
+            case MONTH -> YearMonth.of((int) (key / 12), (int) (key % 12) + 1);
+            case CATEGORY -> key == 0 ? null : dictionary.get((int) key);
+            case ITEM, CUSTOMER -> key == 0 ? null : key;
+        };
+    }
+
+    private static boolean isTime(Dimension dimension) {
+        return dimension == Dimension.DAY || dimension == Dimension.WEEK || dimension == Dimension.MONTH;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Filters are optional; from is inclusive, to exclusive
+    public static class Query {
+        private final List<Dimension> groupBy;
+        private LocalDate from;
+        private LocalDate to;
+        private Long itemId;
+        private Long userId;
+        private String category;
+
+        public Query(List<Dimension> groupBy) {
+            this.groupBy = List.copyOf(groupBy);
+        }
+
+        public Query from(LocalDate from) { this.from = from; return this; }
+
+        public Query to(LocalDate to) { this.to = to; return this; }
+
+        public Query itemId(Long itemId) { this.itemId = itemId; return this; }
+
+        public Query userId(Long userId) { this.userId = userId; return this; }
+
+        public Query category(String category) { this.category = category; return this; }
+    }
+
+    private record Fact(long billId, int day, long userId, long itemId, String category, int quantity, long amountCents) {}
+
+    private record Key(long first, long second) {}
+
+    // Sums {units, cents, lines} per group over rows [start, end); runs under the read lock
+    private class Scan extends RecursiveTask<Map<Key, long[]>> {
+        private final Query query;
+        private final int categoryCode;
+        private final int start;
+        private final int end;
+
+        private Scan(Query query, int categoryCode, int start, int end) {
+            this.query = query;
+            this.categoryCode = categoryCode;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Map<Key, long[]> compute() {
+            if (end - start > SCAN_CHUNK) {
+                int middle = (start + end) >>> 1;
+                Scan left = new Scan(query, categoryCode, start, middle);
+                left.fork();
+                Map<Key, long[]> right = new Scan(query, categoryCode, middle, end).compute();
+                Map<Key, long[]> merged = left.join();
+                right.forEach((key, sums) -> merged.merge(key, sums, (a, b) -> {
+                    a[0] += b[0];
+                    a[1] += b[1];
+                    a[2] += b[2];
+                    return a;
+                }));
+                return merged;
+            }
+
+            int fromDay = query.from != null ? (int) query.from.toEpochDay() : Integer.MIN_VALUE;
+            int toDay = query.to != null ? (int) query.to.toEpochDay() : Integer.MAX_VALUE;
+            long itemId = query.itemId != null ? query.itemId : 0;
+            long userId = query.userId != null ? query.userId : 0;
+            Dimension first = query.groupBy.isEmpty() ? null : query.groupBy.get(0);
+            Dimension second = query.groupBy.size() > 1 ? query.groupBy.get(1) : null;
+
+            Map<Key, long[]> totals = new HashMap<>();
+            for (int row = start; row < end; row++) {
+                int day = days[row];
+                if (day < fromDay || day >= toDay
+                        || (itemId != 0 && itemIds[row] != itemId)
+                        || (userId != 0 && userIds[row] != userId)
+                        || (query.category != null && categories[row] != categoryCode)
+                        || deleted.get(row)) {
+                    continue;
+                }
+                long[] sums = totals.computeIfAbsent(new Key(key(first, row), key(second, row)), k -> new long[3]);
+                sums[0] += quantities[row];
+                sums[1] += amounts[row];
+                sums[2]++;
+            }
+            return totals;
+        }
+
+        private long key(Dimension dimension, int row) {
+            if (dimension == null) {
+                return 0;
+            }
+            return switch (dimension) {
+                case DAY -> days[row];
+                // Monday of the week (epoch day 0 was a Thursday)
+                case WEEK -> days[row] - Math.floorMod(days[row] + 3, 7);
+                case MONTH -> {
+                    LocalDate date = LocalDate.ofEpochDay(days[row]);
+                    yield date.getYear() * 12L + date.getMonthValue() - 1;
+                }
+                case CATEGORY -> categories[row];
+                case ITEM -> itemIds[row];
+                case CUSTOMER -> userIds[row];
+            };
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.SalesBucket;
+import com.pahanaedu.billingapp.dto.SalesTotal;
+import com.pahanaedu.billingapp.dto.ZReport;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.util.Money;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hourly, daily and monthly revenue and the end-of-day Z report. A range is split into calendar
+ * months; each month is aggregated with a GROUP BY over an index range scan on bill_date (live and
+ * archived bills), the months running in parallel on a small fixed pool so a long report uses at
+ * most app.reports.parallelism connections.
+ */
+@Service
+public class SalesReportService {
+
+    public enum Bucket { HOUR, DAY, MONTH }
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final int maxBuckets;
+    private final ExecutorService executor;
+
+    // Shared proxy: every query outside a transaction gets its own EntityManager, so threads don't share one
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SalesReportService(DailySalesRollupRepository rollupRepository,
+                              @Value("${app.reports.parallelism:4}") int parallelism,
+                              @Value("${app.reports.max-buckets:100000}") int maxBuckets) {
+        this.rollupRepository = rollupRepository;
+        this.maxBuckets = maxBuckets;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sales-report-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Every bucket in [from, to), including empty ones; from and to are truncated to the bucket
+    public List<SalesBucket> timeSeries(Bucket bucket, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = truncate(bucket, from);
+        LocalDateTime end = truncate(bucket, to);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("The report range is empty");
+        }
+        long buckets = switch (bucket) {
+            case HOUR -> ChronoUnit.HOURS.between(start, end);
+            case DAY -> ChronoUnit.DAYS.between(start, end);
+            case MONTH -> ChronoUnit.MONTHS.between(start, end);
+        };
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("The report would have " + buckets + " buckets; the limit is " + maxBuckets);
+        }
+
+        List<CompletableFuture<Map<LocalDateTime, long[]>>> partitions = new ArrayList<>();
+        for (LocalDateTime partition = start; partition.isBefore(end); ) {
+            LocalDateTime partitionStart = partition;
+            LocalDateTime next = partition.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            LocalDateTime partitionEnd = next.isBefore(end) ? next : end;
+            partitions.add(CompletableFuture.supplyAsync(() -> aggregate(bucket, partitionStart, partitionEnd), executor));
+            partition = partitionEnd;
+        }
+
+        Map<LocalDateTime, long[]> totals = new HashMap<>();
+        try {
+            partitions.forEach(partition -> totals.putAll(partition.join()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        List<SalesBucket> series = new ArrayList<>((int) buckets);
+        for (LocalDateTime time = start; time.isBefore(end); time = next(bucket, time)) {
+            long[] sums = totals.get(time);
+            series.add(new SalesBucket(time, sums != null ? sums[0] : 0, sums != null ? sums[1] : 0));
+        }
+        return series;
+    }
+
+    public ZReport zReport(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+
+        ZReport report = new ZReport();
+        report.setDate(date);
+        report.setHours(timeSeries(Bucket.HOUR, start, end));
+        for (SalesBucket hour : report.getHours()) {
+            report.setBills(report.getBills() + hour.getBills());
+            report.setRevenueCents(Money.add(report.getRevenueCents(), hour.getRevenueCents()));
+        }
+        // Units and categories come from the daily rollups (see SalesRollupService)
+        List<SalesTotal> categories = rollupRepository.sumByCategory(date, date.plusDays(1));
+        report.setCategories(categories);
+        report.setUnits(categories.stream().mapToLong(SalesTotal::getQuantity).sum());
+
+        Object[] first = edgeBill(start, end, "ASC");
+        Object[] last = edgeBill(start, end, "DESC");
+        if (first != null) {
+            report.setFirstInvoice((String) first[0]);
+            report.setOpenedAt((LocalDateTime) first[1]);
+            report.setLastInvoice((String) last[0]);
+            report.setClosedAt((LocalDateTime) last[1]);
+        }
+        return report;
+    }
+
+    public void writeCsv(List<SalesBucket> series, Writer writer) throws IOException {
+        writer.write("start,bills,revenue\n");
+        for (SalesBucket bucket : series) {
+            writer.write(bucket.getStart() + "," + bucket.getBills() + "," + Money.format(bucket.getRevenueCents()) + "\n");
+        }
+    }
+
+    // The hourly rows of the day followed by a total row
+    public void writeCsv(ZReport report, Writer writer) throws IOException {
+        writeCsv(report.getHours(), writer);
+        writer.write("total," + report.getBills() + "," + Money.format(report.getRevenueCents()) + "\n");
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    // {bills, cents} per bucket start within one partition
+    private Map<LocalDateTime, long[]> aggregate(Bucket bucket, LocalDateTime from, LocalDateTime to) {
+        Map<LocalDateTime, long[]> totals = new HashMap<>();
+        for (String entity : new String[]{"Bill", "ArchivedBill"}) {
+            String fields = switch (bucket) {
+                case HOUR -> "year(b.billDate), month(b.billDate), day(b.billDate), hour(b.billDate)";
+                case DAY -> "year(b.billDate), month(b.billDate), day(b.billDate)";
+                case MONTH -> "year(b.billDate), month(b.billDate)";
+            };
+            List<Object[]> rows = entityManager.createQuery("SELECT " + fields + ", COUNT(b), SUM(b.totalAmountCents)"
+                            + " FROM " + entity + " b WHERE b.billDate >= :from AND b.billDate < :to GROUP BY " + fields,
+                    Object[].class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .getResultList();
+            int keys = bucket == Bucket.HOUR ? 4 : bucket == Bucket.DAY ? 3 : 2;
+            for (Object[] row : rows) {
+                LocalDateTime time = LocalDateTime.of(number(row[0]), number(row[1]), keys > 2 ? number(row[2]) : 1,
+                        keys > 3 ? number(row[3]) : 0, 0);
+                long[] sums = totals.computeIfAbsent(time, t -> new long[2]);
+                sums[0] += ((Number) row[keys]).longValue();
+                sums[1] += ((Number) row[keys + 1]).longValue();
+            }
+        }
+        return totals;
+    }
+
+    // {invoiceNumber, billDate} of the first or last bill in [from, to) by (billDate, id); a day
+    // being archived can be split between the two tables, so both are asked and compared
+    private Object[] edgeBill(LocalDateTime from, LocalDateTime to, String direction) {
+        Comparator<Object[]> order = Comparator.<Object[], LocalDateTime>comparing(row -> (LocalDateTime) row[1])
+                .thenComparing(row -> (Long) row[2]);
+        Object[] edge = null;
+        for (String entity : new String[]{"Bill", "ArchivedBill"}) {
+            List<Object[]> rows = entityManager.createQuery("SELECT b.invoiceNumber, b.billDate, b.id FROM " + entity + " b"
+                            + " WHERE b.billDate >= :from AND b.billDate < :to"
+                            + " ORDER BY b.billDate " + direction + ", b.id " + direction, Object[].class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setMaxResults(1)
+                    .getResultList();
+            if (rows.isEmpty()) {
+                continue;
+            }
+            Object[] row = rows.get(0);
+            int comparison = edge == null ? 0 : order.compare(row, edge);
+            if (edge == null || ("ASC".equals(direction) ? comparison < 0 : comparison > 0)) {
+                edge = row;
+            }
+        }
+        return edge;
+    }
+
+    private static int number(Object value) {
+        return ((Number) value).intValue();
+    }
+
+    private static LocalDateTime truncate(Bucket bucket, LocalDateTime time) {
+        return switch (bucket) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    private static LocalDateTime next(Bucket bucket, LocalDateTime time) {
+        return switch (bucket) {
+            case HOUR -> time.plusHours(1);
+            case DAY -> time.plusDays(1);
+            case MONTH -> time.plusMonths(1);
+        };
+    }
+}
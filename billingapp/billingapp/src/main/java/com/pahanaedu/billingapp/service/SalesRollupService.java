@@ -0,0 +1,245 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.BillSnapshot;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps daily_sales_rollup (units and revenue per day and item) in step with the bills.
+ * add counts new bills once they commit, in a short transaction of its own, so the rows of
+ * today's best sellers are not locked for the whole of every bill; reverse runs inside the
+ * deleting transaction. A crash between a bill's commit and its rollup update leaves that day
+ * short until it is rebuilt. rebuild recomputes a date range from the live and archived bills,
+ * for backfills and repairs; bills created in that range while it runs may be missed, so run
+ * it when the range is quiet (e.g. past days).
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+    private static final int ADD_ATTEMPTS = 3;
+
+    private static final String ADD = "UPDATE daily_sales_rollup SET quantity = quantity + ?, revenue_cents = revenue_cents + ?,"
+            + " category = ? WHERE sales_day = ? AND item_id = ?";
+    private static final String SUBTRACT = "UPDATE daily_sales_rollup SET quantity = quantity - ?, revenue_cents = revenue_cents - ?"
+            + " WHERE sales_day = ? AND item_id = ?";
+    private static final String DELETE_EMPTY = "DELETE FROM daily_sales_rollup WHERE sales_day = ? AND item_id = ? AND quantity <= 0";
+    private static final String INSERT = "INSERT INTO daily_sales_rollup (sales_day, item_id, category, quantity, revenue_cents)"
+            + " VALUES (?, ?, ?, ?, ?)";
+    private static final String LIVE_TOTALS = "SELECT CAST(b.bill_date AS DATE), bi.item_id, SUM(bi.quantity), SUM(bi.subtotal_cents)"
+            + " FROM bill b JOIN bill_item bi ON bi.bill_id = b.id"
+            + " WHERE b.bill_date >= ? AND b.bill_date < ? AND bi.item_id IS NOT NULL"
+            + " GROUP BY CAST(b.bill_date AS DATE), bi.item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailySalesRollupRepository rollupRepository;
+    private final ItemRepository itemRepository;
+    private final BillArchiveService billArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    // Rollups of committed bills are applied after the bill's transaction, on a connection of their own
+    private final TransactionTemplate addTemplate;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              DailySalesRollupRepository rollupRepository,
+                              ItemRepository itemRepository,
+                              BillArchiveService billArchiveService,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.itemRepository = itemRepository;
+        this.billArchiveService = billArchiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.addTemplate = new TransactionTemplate(transactionManager);
+        this.addTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Counts newly created bills once the transaction that saves them commits: one batch of
+    // updates, plus one batch of inserts for the rows a day's first sale of an item creates
+    public void add(List<Bill> bills) {
+        Map<LocalDate, Map<Long, Line>> days = totals(bills);
+        if (!days.isEmpty()) {
+            afterCommit(() -> apply(days));
+        }
+    }
+
+    // Takes a deleted bill back out; call inside the transaction that deletes it
+    public void reverse(Bill bill) {
+        List<Object[]> subtractions = new ArrayList<>();
+        List<Object[]> keys = new ArrayList<>();
+        totals(List.of(bill)).forEach((day, lines) -> lines.forEach((itemId, line) -> {
+            subtractions.add(new Object[]{line.quantity, line.revenueCents, Date.valueOf(day), itemId});
+            keys.add(new Object[]{Date.valueOf(day), itemId});
+        }));
+        if (!subtractions.isEmpty()) {
+            jdbcTemplate.batchUpdate(SUBTRACT, subtractions);
+            jdbcTemplate.batchUpdate(DELETE_EMPTY, keys);
+        }
+    }
+
+    // Recomputes the rollups of [from, toExclusive); returns how many rows were written
+    public int rebuild(LocalDate from, LocalDate toExclusive) {
+        Map<LocalDate, Map<Long, Line>> days = new TreeMap<>();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = toExclusive.atStartOfDay();
+
+        jdbcTemplate.query(LIVE_TOTALS, rs -> {
+            Line line = days.computeIfAbsent(rs.getDate(1).toLocalDate(), d -> new TreeMap<>())
+                    .computeIfAbsent(rs.getLong(2), id -> new Line());
+            line.quantity += rs.getLong(3);
+            line.revenueCents += rs.getLong(4);
+        }, Timestamp.valueOf(start), Timestamp.valueOf(end));
+
+        billArchiveService.forEachSnapshot(start, end, snapshot -> {
+            LocalDate day = snapshot.getBillDate().toLocalDate();
+            for (BillSnapshot.Line item : snapshot.getItems()) {
+                if (item.getItemId() != null) {
+                    Line line = days.computeIfAbsent(day, d -> new TreeMap<>()).computeIfAbsent(item.getItemId(), id -> new Line());
+                    line.quantity += item.getQuantity();
+                    line.revenueCents += item.getSubtotalCents();
+                }
+            }
+        });
+
+        // Categories as they are now; the incremental path records them at sale time
+        Map<Long, String> categories = new HashMap<>();
+        List<Long> itemIds = days.values().stream().flatMap(lines -> lines.keySet().stream()).distinct().toList();
+        for (Item item : itemRepository.findAllById(itemIds)) {
+            categories.put(item.getId(), item.getCategory());
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        days.forEach((day, lines) -> lines.forEach((itemId, line) -> rows.add(new Object[]{
+                Date.valueOf(day), itemId, categories.get(itemId), line.quantity, line.revenueCents})));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteDays(from, toExclusive);
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        });
+        return rows.size();
+    }
+
+    // Rebuilds every day that has bills, e.g. right after the table was introduced
+    public int rebuildAll() {
+        LocalDateTime first = earliest("SELECT MIN(bill_date) FROM bill", "SELECT MIN(bill_date) FROM archived_bill");
+        if (first == null) {
+            return 0;
+        }
+        return rebuild(first.toLocalDate(), LocalDate.now().plusDays(1));
+    }
+
+    public boolean isEmpty() {
+        return rollupRepository.findDays(PageRequest.of(0, 1)).isEmpty();
+    }
+
+    // Never throws: the bill is already committed
+    private void apply(Map<LocalDate, Map<Long, Line>> days) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                addTemplate.executeWithoutResult(status -> upsert(days));
+                return;
+            } catch (DuplicateKeyException e) {
+                // Another bill inserted one of the rows first; the next attempt updates it
+                if (attempt == ADD_ATTEMPTS) {
+                    logger.warn("Could not count a bill in the sales rollups of {}; rebuild those days", days.keySet(), e);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not count a bill in the sales rollups of {}; rebuild those days", days.keySet(), e);
+                return;
+            }
+        }
+    }
+
+    private void upsert(Map<LocalDate, Map<Long, Line>> days) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        days.forEach((day, lines) -> lines.forEach((itemId, line) -> {
+            updates.add(new Object[]{line.quantity, line.revenueCents, line.category, Date.valueOf(day), itemId});
+            rows.add(new Object[]{Date.valueOf(day), itemId, line.category, line.quantity, line.revenueCents});
+        }));
+        int[] updated = jdbcTemplate.batchUpdate(ADD, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(rows.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+    }
+
+    private LocalDateTime earliest(String... queries) {
+        LocalDateTime earliest = null;
+        for (String query : queries) {
+            Timestamp value = jdbcTemplate.queryForObject(query, Timestamp.class);
+            if (value != null && (earliest == null || value.toLocalDateTime().isBefore(earliest))) {
+                earliest = value.toLocalDateTime();
+            }
+        }
+        return earliest;
+    }
+
+    // Per day and item in key order, so concurrent updates lock shared rows in the same order
+    // and cannot deadlock each other
+    private static Map<LocalDate, Map<Long, Line>> totals(List<Bill> bills) {
+        Map<LocalDate, Map<Long, Line>> days = new TreeMap<>();
+        for (Bill bill : bills) {
+            LocalDate day = bill.getBillDate().toLocalDate();
+            for (BillItem billItem : bill.getItems()) {
+                Item item = billItem.getItem();
+                if (item == null || item.getId() == null) {
+                    continue;
+                }
+                Line line = days.computeIfAbsent(day, d -> new TreeMap<>()).computeIfAbsent(item.getId(), id -> new Line());
+                line.quantity += billItem.getQuantity();
+                line.revenueCents += billItem.getSubtotalCents();
+                line.category = item.getCategory();
+            }
+        }
+        return days;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Line {
+        private long quantity;
+        private long revenueCents;
+        private String category;
+    }
+}
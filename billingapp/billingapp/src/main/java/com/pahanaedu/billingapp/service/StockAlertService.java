@@ -0,0 +1,220 @@
+package com.pahanaedu.billingapp.service;
+
+import com.pahanaedu.billingapp.dto.LowStockItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of the items at or below their low-stock threshold (the item's own, else its
+ * category's from app.stock-alert.category-thresholds, else app.stock-alert.default-threshold).
+ * The catalog is scanned once at startup; after that only the items of a committed bill or an
+ * edited item are checked. An alert is raised when an item falls to its threshold and again when
+ * it runs out, never twice for the same level, and is re-armed once the item is restocked above
+ * the threshold. Alerts go to the bill stream as "stock-alert" events and, if
+ * app.stock-alert.email-to is set, by e-mail. Items already low at startup are indexed without an alert.
+ */
+@Service
+public class StockAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockAlertService.class);
+
+    private final ItemRepository itemRepository;
+    private final InventoryEngine inventoryEngine;
+    private final BillEventPublisher billEventPublisher;
+    private final EmailService emailService;
+    private final int defaultThreshold;
+    private final Map<String, Integer> categoryThresholds;
+    private final String emailTo;
+    private final ConcurrentHashMap<Long, LowStockItem> lowStock = new ConcurrentHashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+    // E-mails are sent off the request thread; a slow mail server never delays a bill
+    private final ExecutorService mailer = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong alerts = new AtomicLong();
+    private final AtomicLong failedEmails = new AtomicLong();
+
+    public StockAlertService(ItemRepository itemRepository,
+                             InventoryEngine inventoryEngine,
+                             BillEventPublisher billEventPublisher,
+                             EmailService emailService,
+                             @Value("${app.stock-alert.default-threshold:5}") int defaultThreshold,
+                             @Value("${app.stock-alert.category-thresholds:}") String categoryThresholds,
+                             @Value("${app.stock-alert.email-to:}") String emailTo) {
+        this.itemRepository = itemRepository;
+        this.inventoryEngine = inventoryEngine;
+        this.billEventPublisher = billEventPublisher;
+        this.emailService = emailService;
+        this.defaultThreshold = defaultThreshold;
+        this.categoryThresholds = parseThresholds(categoryThresholds);
+        this.emailTo = emailTo.trim();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        Thread.ofVirtual().name("stock-alert-load").start(this::ensureLoaded);
+    }
+
+    // Checks the items a bill sold from; call inside the bill transaction, after the stock was reserved
+    public void checkAfterCommit(Collection<Item> soldItems) {
+        List<LowStockItem> levels = new ArrayList<>(soldItems.size());
+        for (Item item : soldItems) {
+            levels.add(level(item, inventoryEngine.availableStock(item)));
+        }
+        afterCommit(() -> levels.forEach(level -> apply(level, true)));
+    }
+
+    // Re-checks an item after its stock or threshold was edited directly. The stock is read from
+    // the inventory engine once the edit committed: in ledger mode item.stock lags behind sales.
+    public void stockChanged(Item item) {
+        afterCommit(() -> apply(level(item, inventoryEngine.availableStock(item)), false));
+    }
+
+    public void itemDeleted(Long itemId) {
+        afterCommit(() -> lowStock.remove(itemId));
+    }
+
+    // Out-of-stock items first, then by stock left; never touches the database after startup
+    public List<LowStockItem> getLowStock() {
+        ensureLoaded();
+        List<LowStockItem> items = new ArrayList<>(lowStock.values());
+        items.sort(Comparator.comparingInt(LowStockItem::getStock).thenComparing(LowStockItem::getName));
+        return items;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lowStockItems", lowStock.size());
+        stats.put("alertsRaised", alerts.get());
+        stats.put("failedEmails", failedEmails.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        mailer.shutdown();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                for (Item item : itemRepository.findAll()) {
+                    LowStockItem level = level(item, item.getStock());
+                    if (level.getStock() <= level.getThreshold()) {
+                        // Changes applied while loading are newer than the scan
+                        lowStock.putIfAbsent(item.getId(), level);
+                    }
+                }
+                loaded = true;
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // fromSale: the stock can only have gone down, so a higher level than the indexed one is a
+    // late commit of an earlier bill and is ignored
+    private void apply(LowStockItem level, boolean fromSale) {
+        ensureLoaded();
+        LowStockItem[] raised = new LowStockItem[1];
+        lowStock.compute(level.getItemId(), (id, previous) -> {
+            if (fromSale && previous != null && previous.getStock() <= level.getStock()) {
+                return previous;
+            }
+            if (level.getStock() > level.getThreshold()) {
+                return null;
+            }
+            LowStockItem current = previous == null ? level : new LowStockItem(level.getItemId(), level.getName(),
+                    level.getCategory(), level.getStock(), level.getThreshold(), previous.getSince());
+            // Only a worse level alerts; a partial restock from out of stock to low does not
+            if (previous == null || (LowStockItem.OUT.equals(current.getLevel()) && LowStockItem.LOW.equals(previous.getLevel()))) {
+                raised[0] = current;
+            }
+            return current;
+        });
+        if (raised[0] != null) {
+            raise(raised[0]);
+        }
+    }
+
+    private void raise(LowStockItem item) {
+        alerts.incrementAndGet();
+        billEventPublisher.publishStockAlert(item);
+        if (emailTo.isEmpty()) {
+            return;
+        }
+        String subject = (LowStockItem.OUT.equals(item.getLevel()) ? "Out of stock: " : "Low stock: ") + item.getName();
+        String body = item.getName() + (item.getCategory() != null ? " (" + item.getCategory() + ")" : "")
+                + " has " + item.getStock() + " left; the alert level is " + item.getThreshold() + ".";
+        mailer.execute(() -> {
+            try {
+                emailService.sendEmail(emailTo, subject, body);
+            } catch (Exception e) {
+                failedEmails.incrementAndGet();
+                logger.warn("Could not e-mail the stock alert for item {}: {}", item.getItemId(), e.getMessage());
+            }
+        });
+    }
+
+    private LowStockItem level(Item item, int stock) {
+        Integer threshold = item.getLowStockThreshold();
+        if (threshold == null) {
+            threshold = item.getCategory() != null
+                    ? categoryThresholds.getOrDefault(item.getCategory(), defaultThreshold) : defaultThreshold;
+        }
+        return new LowStockItem(item.getId(), item.getName(), item.getCategory(), stock, threshold, LocalDateTime.now());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // "Fiction=10,Stationery=25"
+    private static Map<String, Integer> parseThresholds(String value) {
+        Map<String, Integer> thresholds = new HashMap<>();
+        for (String entry : value.split(",")) {
+            int equals = entry.lastIndexOf('=');
+            if (equals > 0) {
+                thresholds.put(entry.substring(0, equals).trim(), Integer.parseInt(entry.substring(equals + 1).trim()));
+            } else if (!entry.isBlank()) {
+                throw new IllegalArgumentException("app.stock-alert.category-thresholds entries look like Category=10: " + entry);
+            }
+        }
+        return thresholds;
+    }
+}
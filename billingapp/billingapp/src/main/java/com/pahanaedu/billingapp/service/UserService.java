@@ -51,6 +51,10 @@ public class UserService {
         return userRepo.findAll();
     }
 
+    public List<User> getAllUsersBySpend() {
+        return userRepo.findAllOrderBySpendDesc();
+    }
+
     public User getUserById(Long id) {
         return userRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
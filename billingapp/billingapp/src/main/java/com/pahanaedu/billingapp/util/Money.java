@@ -0,0 +1,46 @@
+package com.pahanaedu.billingapp.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money helpers. Amounts are long minor units (cents), so summing a bill
+ * is exact and allocates nothing. Overflow throws ArithmeticException instead of wrapping.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    private static final long MINOR_PER_MAJOR = 100;
+
+    private Money() {}
+
+    // Rounds half-up to the nearest cent; rejects amounts that do not fit a long
+    public static long ofMajor(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        // Going through the decimal string keeps 0.1 + 0.2 style artefacts out of the cents
+        return BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long multiply(long minor, int quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    // "1234.50" style text for reports and exports
+    public static String format(long minor) {
+        return toBigDecimal(minor).toPlainString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ArchivedBillRepository;
+import com.pahanaedu.billingapp.repository.BillRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillArchiveService;
+import com.pahanaedu.billingapp.service.BillService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class BillArchiveServiceTest {
+
+    @Autowired
+    private BillArchiveService billArchiveService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private ArchivedBillRepository archivedBillRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testOldBillsMoveToTheArchiveAndStayReadable() {
+        Item book = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Item pen = itemRepository.save(new Item("Pen " + UUID.randomUUID(), "Test item", 19.99, 10));
+        Bill old = billService.createBill(new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(book.getId(), 2), new BillItemDTO(pen.getId(), 3))));
+        Bill recent = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+        jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(3), old.getId());
+
+        int archived = billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(1));
+
+        assertTrue(archived >= 1);
+        assertFalse(billRepository.existsById(old.getId()));
+        assertTrue(archivedBillRepository.existsById(old.getId()));
+        assertTrue(billRepository.existsById(recent.getId()));
+
+        Bill restored = billService.getBillById(old.getId());
+        assertEquals(old.getInvoiceNumber(), restored.getInvoiceNumber());
+        assertEquals(old.getTotalAmountCents(), restored.getTotalAmountCents());
+        assertEquals(customer.getId(), restored.getUser().getId());
+        assertEquals(2, restored.getItems().size());
+        assertEquals(pen.getName(), restored.getItems().stream()
+                .filter(line -> line.getQuantity() == 3).findFirst().orElseThrow().getItem().getName());
+        assertEquals(old.getId(), billService.getBillByIdAndUserId(old.getId(), customer.getId()).getId());
+    }
+
+    @Test
+    public void testDeletingAnArchivedBillRemovesItFromTheArchive() {
+        Item book = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Bill old = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+        jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(3), old.getId());
+        billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(1));
+
+        billService.deleteBill(old.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> billService.getBillById(old.getId()));
+    }
+
+    @Test
+    public void testArchiveStatementCountDoesNotGrowWithTheBatch() {
+        long one = statementsToArchive(1);
+        long three = statementsToArchive(3);
+
+        assertEquals(one, three, "Archived bills should be inserted in one batch, without a select per bill");
+    }
+
+    // Archives that many new bills, dated before every other test's, and counts the statements
+    private long statementsToArchive(int bills) {
+        Item book = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        for (int i = 0; i < bills; i++) {
+            Bill bill = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+            jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(10), bill.getId());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(bills, billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(9)));
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,197 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.controller.BillController;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.RoleRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillArchiveService;
+import com.pahanaedu.billingapp.service.BillService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class BillConditionalGetTest {
+
+    @Autowired
+    private BillController billController;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BillArchiveService billArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User admin;
+
+    @BeforeEach
+    public void setUp() {
+        String name = "admin-" + UUID.randomUUID();
+        admin = new User();
+        admin.setUsername(name);
+        admin.setEmail(name + "@example.com");
+        admin.setRoles(Set.of(roleRepository.findByName("ROLE_ADMIN").orElseThrow()));
+        admin = userRepository.save(admin);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(name, null, List.of()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testUnchangedBillIsAnswered304WithoutLoadingIt() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Long billId = billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1)))).getId();
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ResponseEntity<?> response = billController.getBillById(billId, webRequest(null, first));
+        assertEquals(200, response.getStatusCode().value());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals("\"bill-" + billId + "-json\"", etag);
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertNull(billController.getBillById(billId, webRequest(etag, second)));
+        assertEquals(304, second.getStatus());
+        assertEquals(0, statistics.getEntityStatistics(Bill.class.getName()).getLoadCount());
+
+        // A deleted bill has no validator, so the stale ETag does not match
+        billService.deleteBill(billId);
+        MockHttpServletResponse afterDelete = new MockHttpServletResponse();
+        assertEquals(403, billController.getBillById(billId, webRequest(etag, afterDelete)).getStatusCode().value());
+    }
+
+    @Test
+    public void testRepeatedBillReadsAreServedFromCachedJson() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Long billId = billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 2)))).getId();
+
+        ResponseEntity<?> first = billController.getBillById(billId, webRequest(null, new MockHttpServletResponse()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ResponseEntity<?> second = billController.getBillById(billId, webRequest(null, new MockHttpServletResponse()));
+
+        assertArrayEquals((byte[]) first.getBody(), (byte[]) second.getBody());
+        assertEquals(0, statistics.getEntityStatistics(Bill.class.getName()).getLoadCount());
+        // Only the current user is looked up
+        assertTrue(Arrays.stream(statistics.getQueries()).noneMatch(query -> query.contains("Bill")),
+                "A cache hit should not query bills");
+
+        billService.deleteBill(billId);
+        assertEquals(403, billController.getBillById(billId, webRequest(null, new MockHttpServletResponse()))
+                .getStatusCode().value());
+    }
+
+    @Test
+    public void testBillListETagChangesWhenBillsAreAddedOrDeleted() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1))));
+
+        String etag = listETag(null);
+        assertNotNull(etag);
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        assertNull(billController.getAllBills(null, 50, admin.getId(), null, null, webRequest(etag, unchanged)));
+        assertEquals(304, unchanged.getStatus());
+
+        Long added = billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1)))).getId();
+        String afterAdd = listETag(etag);
+        assertNotEquals(etag, afterAdd);
+
+        billService.deleteBill(added);
+        assertNotEquals(afterAdd, listETag(afterAdd));
+    }
+
+    @Test
+    public void testBillListETagChangesWhenBillsAreArchived() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Long older = billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1)))).getId();
+        billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1))));
+        jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(3), older);
+        String etag = listETag(null);
+
+        assertEquals(1, billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(2)));
+
+        assertNotEquals(etag, listETag(etag));
+    }
+
+    @Test
+    public void testPrintAndPdfAreAnswered304WithoutLoadingTheBill() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 10));
+        Long billId = billService.createBill(new BillDTO(admin.getId(), List.of(new BillItemDTO(item.getId(), 1)))).getId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MockHttpServletResponse print = new MockHttpServletResponse();
+        assertNull(billController.printBill(billId, webRequest("\"bill-" + billId + "-json\"", print)));
+        assertEquals(304, print.getStatus());
+        MockHttpServletResponse pdf = new MockHttpServletResponse();
+        assertNull(billController.downloadPdf(billId, webRequest("\"bill-" + billId + "-pdf\"", pdf)));
+        assertEquals(304, pdf.getStatus());
+        assertEquals(0, statistics.getEntityStatistics(Bill.class.getName()).getLoadCount());
+    }
+
+    // Fetches the first page for the admin's own bills, expecting a full response
+    private String listETag(String ifNoneMatch) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> page = billController.getAllBills(null, 50, admin.getId(), null, null, webRequest(ifNoneMatch, response));
+        assertNotNull(page);
+        assertEquals(200, page.getStatusCode().value());
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bills");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,156 @@
+package com.pahanaedu.billingapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillEvent;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.BillItem;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.service.BillEventPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit test with recording emitters; replay buffer of 4 events, subscriber queues of 8
+
+public class BillEventPublisherTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private final BillEventPublisher publisher = new BillEventPublisher(new ObjectMapper().findAndRegisterModules(), 0, 4, 8);
+
+    @AfterEach
+    public void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    public void testSubscribersOnlyReceiveTheBillsTheyMaySee() throws InterruptedException {
+        RecordingEmitter admin = new RecordingEmitter();
+        RecordingEmitter customer = new RecordingEmitter();
+        publisher.subscribe(admin, null, null);
+        publisher.subscribe(customer, 7L, null);
+
+        publisher.publishAfterCommit(BillEvent.CREATED, List.of(bill(1L, 7L), bill(2L, 8L)));
+        publisher.publishAfterCommit(BillEvent.DELETED, List.of(bill(1L, 7L)));
+
+        admin.await(3);
+        customer.await(2);
+        assertTrue(admin.frames.get(0).contains("event:created") && admin.frames.get(0).contains("\"units\":3"));
+        assertTrue(admin.frames.get(1).contains("\"id\":2"));
+        assertTrue(customer.frames.get(1).contains("event:deleted"));
+        assertTrue(customer.frames.stream().noneMatch(frame -> frame.contains("\"id\":2")));
+    }
+
+    @Test
+    public void testReconnectingSubscriberReplaysMissedEvents() throws InterruptedException {
+        RecordingEmitter first = new RecordingEmitter();
+        publisher.subscribe(first, null, null);
+        publisher.publishAfterCommit(BillEvent.CREATED, List.of(bill(1L, 7L)));
+        first.await(1);
+        String lastEventId = first.eventId(0);
+
+        publisher.publishAfterCommit(BillEvent.CREATED, List.of(bill(2L, 7L), bill(3L, 7L)));
+        RecordingEmitter resumed = new RecordingEmitter();
+        publisher.subscribe(resumed, null, lastEventId);
+
+        resumed.await(2);
+        assertTrue(resumed.frames.get(0).contains("\"id\":2"));
+        assertTrue(resumed.frames.get(1).contains("\"id\":3"));
+
+        // Ids from an older run or beyond the replay buffer cannot be replayed
+        RecordingEmitter stale = new RecordingEmitter();
+        publisher.subscribe(stale, null, "1-1");
+        stale.await(1);
+        assertTrue(stale.frames.get(0).contains("event:" + BillEventPublisher.RESET));
+    }
+
+    @Test
+    public void testSlowSubscriberIsDisconnectedWithoutHoldingUpOthers() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) throws IOException {
+                try {
+                    stuck.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(items);
+            }
+        };
+        RecordingEmitter fast = new RecordingEmitter();
+        publisher.subscribe(slow, null, null);
+        publisher.subscribe(fast, null, null);
+
+        // The fast subscriber keeps up with every event while the slow one is stuck on its first
+        for (int count = 1; count <= 12; count++) {
+            publisher.publishAfterCommit(BillEvent.CREATED, List.of(bill((long) count, 7L)));
+            fast.await(count);
+        }
+
+        assertTrue(slow.completed.get(), "A subscriber that falls more than 8 events behind is disconnected");
+        assertEquals(1, publisher.getStats().get("subscribers"));
+        assertEquals(1L, publisher.getStats().get("droppedSubscribers"));
+        stuck.countDown();
+    }
+
+    private static Bill bill(Long id, Long userId) {
+        User user = new User();
+        ReflectionTestUtils.setField(user, "id", userId);
+        BillItem line = new BillItem();
+        line.setQuantity(3);
+        Bill bill = new Bill();
+        bill.setId(id);
+        bill.setUser(user);
+        bill.setBillDate(LocalDateTime.now());
+        bill.setTotalAmountCents(1500);
+        bill.setItems(List.of(line));
+        return bill;
+    }
+
+    // Captures what would be written to the client
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            StringBuilder frame = new StringBuilder();
+            items.forEach(item -> frame.append(item.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.set(true);
+        }
+
+        private void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (frames.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, frames.size());
+        }
+
+        private String eventId(int index) {
+            Matcher matcher = EVENT_ID.matcher(frames.get(index));
+            assertTrue(matcher.find());
+            return matcher.group(1);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.pahanaedu.billingapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillArchiveService;
+import com.pahanaedu.billingapp.service.BillExportService;
+import com.pahanaedu.billingapp.service.BillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class BillExportServiceTest {
+
+    @Autowired
+    private BillExportService billExportService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BillArchiveService billArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository, "Perera, \"Nimal\"");
+    }
+
+    @Test
+    public void testNdjsonExportWritesOneLinePerBillLine() throws Exception {
+        Item book = TestData.item(itemRepository, 250.0, 100);
+        Item pen = TestData.item(itemRepository, 12.5, 100);
+        billService.createBill(new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(book.getId(), 2), new BillItemDTO(pen.getId(), 1))));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(pen.getId(), 4))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = billExportService.export(BillExportService.NDJSON, customer.getId(), null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(customer.getId().longValue(), first.get("userId").asLong());
+        assertEquals(2, first.get("quantity").asInt());
+        assertEquals(0, first.get("subtotal").decimalValue().compareTo(new BigDecimal("500.00")));
+        assertEquals(0, first.get("billTotal").decimalValue().compareTo(new BigDecimal("512.50")));
+    }
+
+    @Test
+    public void testCsvExportQuotesFieldsAndHonoursDateRange() {
+        Item book = TestData.item(itemRepository, 250.0, 100);
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = billExportService.export(BillExportService.CSV, customer.getId(),
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, written);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("bill_id,invoice_number,bill_date"));
+        assertTrue(lines[1].contains(",\"Perera, \"\"Nimal\"\"\","));
+        assertTrue(lines[1].endsWith(",1,250.00,250.00"));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        assertEquals(0, billExportService.export(BillExportService.CSV, customer.getId(),
+                LocalDateTime.now().plusDays(1), null, empty));
+        assertThrows(IllegalArgumentException.class,
+                () -> billExportService.export("xml", customer.getId(), null, null, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testExportIncludesArchivedBillsInBillIdOrder() throws Exception {
+        Item book = TestData.item(itemRepository, 250.0, 100);
+        Item pen = TestData.item(itemRepository, 12.5, 100);
+        Long old = billService.createBill(new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2)))).getId();
+        Long recent = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(pen.getId(), 3)))).getId();
+        jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(3), old);
+        billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(1));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = billExportService.export(BillExportService.NDJSON, customer.getId(), null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(old.longValue(), first.get("billId").asLong());
+        assertEquals(book.getName(), first.get("itemName").asText());
+        assertEquals(customer.getFullName(), first.get("customerName").asText());
+        assertEquals(old.longValue(), objectMapper.readTree(lines[1]).get("billId").asLong());
+        assertEquals(recent.longValue(), objectMapper.readTree(lines[2]).get("billId").asLong());
+
+        // Date filters apply to archived bills too
+        assertEquals(1, billExportService.export(BillExportService.CSV, customer.getId(),
+                LocalDateTime.now().minusDays(1), null, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.service.BillJsonCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BillJsonCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedBillsAreEvictedByByteSize() {
+        // Room for two 400-byte bills plus overhead, not three
+        BillJsonCache cache = new BillJsonCache(1000);
+        cache.put(1L, cached(400), cache.generation());
+        cache.put(2L, cached(400), cache.generation());
+        assertNotNull(cache.get(1L));
+
+        cache.put(3L, cached(400), cache.generation());
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2, stats.get("entries"));
+        assertEquals(1L, stats.get("evictions"));
+        assertEquals(3L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    public void testInvalidateAndOversizedEntries() {
+        BillJsonCache cache = new BillJsonCache(1000);
+        cache.put(1L, cached(400), cache.generation());
+        cache.invalidate(1L);
+        cache.put(2L, cached(5000), cache.generation());
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(0L, cache.getStats().get("bytes"));
+    }
+
+    @Test
+    public void testPutIsSkippedWhenABillWasInvalidatedSinceItWasLoaded() {
+        BillJsonCache cache = new BillJsonCache(1000);
+        long generation = cache.generation();
+        // A delete lands between loading bill 1 and caching it
+        cache.invalidate(1L);
+        cache.put(1L, cached(400), generation);
+
+        assertNull(cache.get(1L));
+        cache.put(1L, cached(400), cache.generation());
+        assertNotNull(cache.get(1L));
+    }
+
+    private static BillJsonCache.Cached cached(int size) {
+        return new BillJsonCache.Cached(new byte[size], 1L, LocalDateTime.now());
+    }
+}
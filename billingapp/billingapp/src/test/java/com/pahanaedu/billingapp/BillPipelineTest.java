@@ -0,0 +1,84 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.BillTicket;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillPipeline;
+import com.pahanaedu.billingapp.service.BillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class BillPipelineTest {
+
+    @Autowired
+    private BillPipeline billPipeline;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testQueuedBillsAreCreatedOrRejected() throws Exception {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 15));
+
+        List<BillTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BillTicket ticket = billPipeline.submit(
+                    new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 1))), customer.getUsername());
+            assertEquals(BillTicket.PENDING, ticket.getStatus());
+            tickets.add(ticket);
+        }
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (tickets.stream().anyMatch(BillTicket::isPending) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        long created = tickets.stream().filter(t -> BillTicket.CREATED.equals(t.getStatus())).count();
+        long rejected = tickets.stream().filter(t -> BillTicket.REJECTED.equals(t.getStatus())).count();
+        assertEquals(15, created);
+        assertEquals(5, rejected);
+        assertEquals(0, itemRepository.findById(item.getId()).orElseThrow().getStock());
+        assertSame(tickets.get(0), billPipeline.getTicket(tickets.get(0).getId()).orElseThrow());
+        assertEquals(0, billPipeline.getStats().get("queueDepth"));
+    }
+
+    @Test
+    public void testFullQueueRejectsSubmission() {
+        // Not started, so nothing drains the queue
+        BillPipeline pipeline = new BillPipeline(billService, 1, 1, 10, 60);
+        BillDTO billDTO = new BillDTO(customer.getId(), List.of(new BillItemDTO(1L, 1)));
+
+        pipeline.submit(billDTO, customer.getUsername());
+
+        assertThrows(BillPipeline.QueueFullException.class, () -> pipeline.submit(billDTO, customer.getUsername()));
+        assertEquals(1, pipeline.getStats().get("queueDepth"));
+    }
+}
@@ -0,0 +1,381 @@
+package com.pahanaedu.billingapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillBatchResult;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillPage;
+import com.pahanaedu.billingapp.dto.BillSearchCriteria;
+import com.pahanaedu.billingapp.dto.BillSummary;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.RoleRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.util.Money;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.app.id.allocation_size=1000",
+        "app.invoice.block-size=1000"
+})
+@ActiveProfiles("test")
+public class BillServiceTest {
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testCreateBillStatementCountDoesNotGrowWithBasketSize() {
+        // Reserve the first id blocks so neither measured bill has to fetch one
+        statementsForBillWithLines(1);
+
+        long smallBasket = statementsForBillWithLines(5);
+        long largeBasket = statementsForBillWithLines(40);
+
+        assertEquals(smallBasket, largeBasket,
+                "Item lookups, stock updates and bill line inserts should be batched, not sent per line");
+    }
+
+    @Test
+    public void testCreateBillJdbcStatementCountDoesNotGrowWithBasketSize() {
+        // Also counts the JdbcTemplate statements (rollups, customer spend) that Hibernate does not see
+        jdbcStatementsForBillWithLines(1);
+
+        long smallBasket = jdbcStatementsForBillWithLines(5);
+        long largeBasket = jdbcStatementsForBillWithLines(40);
+
+        assertEquals(smallBasket, largeBasket, "Every table a bill touches should be written in batches, not per line");
+    }
+
+    @Test
+    public void testCreateBillMergesDuplicateItems() {
+        Item item = TestData.item(itemRepository, 250.0, 10);
+        BillDTO billDTO = new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(item.getId(), 2),
+                new BillItemDTO(item.getId(), 3)));
+
+        Bill bill = billService.createBill(billDTO);
+
+        assertEquals(1, bill.getItems().size());
+        assertEquals(5, bill.getItems().get(0).getQuantity());
+        assertEquals(5, itemRepository.findById(item.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testCreateBillLeavesStockUntouchedWhenALineFails() {
+        Item available = TestData.item(itemRepository, 250.0, 10);
+        Item scarce = TestData.item(itemRepository, 250.0, 1);
+        BillDTO billDTO = new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(available.getId(), 4),
+                new BillItemDTO(scarce.getId(), 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> billService.createBill(billDTO));
+
+        assertEquals(10, itemRepository.findById(available.getId()).orElseThrow().getStock());
+        assertEquals(1, itemRepository.findById(scarce.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testCreateBillsRejectsOnlyTheFailingBillsOfAChunk() {
+        Item item = TestData.item(itemRepository, 250.0, 5);
+        List<BillDTO> chunk = List.of(
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 2))),
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 10))),
+                new BillDTO(-1L, List.of(new BillItemDTO(item.getId(), 1))),
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 3))));
+
+        List<BillBatchResult> results = billService.createBills(chunk, 100, null);
+
+        assertEquals(4, results.size());
+        assertEquals(BillBatchResult.CREATED, results.get(0).getStatus());
+        assertEquals(BillBatchResult.REJECTED, results.get(1).getStatus());
+        assertEquals(BillBatchResult.REJECTED, results.get(2).getStatus());
+        assertEquals(BillBatchResult.CREATED, results.get(3).getStatus());
+        assertEquals(101, results.get(1).getIndex());
+        assertNotNull(results.get(3).getBillId());
+        assertEquals(0, itemRepository.findById(item.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testCreateBillsRejectsABillWhoseTotalOverflows() {
+        Item item = TestData.item(itemRepository, 250.0, 5);
+        Item priceless = new Item("Painting " + UUID.randomUUID(), "Test item", 0.0, 5);
+        priceless.setPriceCents(Long.MAX_VALUE / 2);
+        priceless = itemRepository.save(priceless);
+        List<BillDTO> chunk = List.of(
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 2))),
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 1), new BillItemDTO(priceless.getId(), 3))),
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 1))));
+
+        List<BillBatchResult> results = billService.createBills(chunk, 0, null);
+
+        assertEquals(BillBatchResult.CREATED, results.get(0).getStatus());
+        assertEquals(BillBatchResult.REJECTED, results.get(1).getStatus());
+        assertEquals(BillBatchResult.CREATED, results.get(2).getStatus());
+        // The rejected bill's stock was reserved before its total overflowed, and is not kept
+        assertEquals(2, itemRepository.findById(item.getId()).orElseThrow().getStock());
+        assertEquals(5, itemRepository.findById(priceless.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testConcurrentBillsOnHotItemsKeepStockExact() throws Exception {
+        Item first = TestData.item(itemRepository, 250.0, 150);
+        Item second = TestData.item(itemRepository, 250.0, 1000);
+        int bills = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < bills; i++) {
+            // Alternate the line order so bills would deadlock without ordered locking
+            List<BillItemDTO> lines = i % 2 == 0
+                    ? List.of(new BillItemDTO(first.getId(), 1), new BillItemDTO(second.getId(), 2))
+                    : List.of(new BillItemDTO(second.getId(), 2), new BillItemDTO(first.getId(), 1));
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    billService.createBill(new BillDTO(customer.getId(), lines));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        // Only 150 bills fit the first item's stock; the rest must be rejected, not oversold
+        assertEquals(150, created);
+        assertEquals(0, itemRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(1000 - 2 * created, itemRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    public void testBillPagesWalkNewestFirstWithoutOverlap() {
+        Item item = TestData.item(itemRepository, 250.0, 10);
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 1)))).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BillPage page = billService.getBillPage(customer.getId(), null, null, cursor, 2);
+            page.getBills().forEach(bill -> seen.add(bill.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(created.reversed(), seen);
+        assertThrows(IllegalArgumentException.class,
+                () -> billService.getBillPage(customer.getId(), null, null, "not-a-cursor", 2));
+    }
+
+    @Test
+    public void testSearchBillsCombinesItemCategoryAndAmountFilters() {
+        String category = "Category " + UUID.randomUUID();
+        Item book = TestData.item(itemRepository, 250.0, 10);
+        Item atlas = itemRepository.save(new Item("Atlas " + UUID.randomUUID(), "Test item", 1000.0, 10));
+        atlas.setCategory(category);
+        atlas = itemRepository.save(atlas);
+        Long bookOnly = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1)))).getId();
+        Long cheapAtlas = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(atlas.getId(), 1)))).getId();
+        Long dearAtlas = billService.createBill(new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(atlas.getId(), 2), new BillItemDTO(book.getId(), 1)))).getId();
+
+        BillSearchCriteria byItem = new BillSearchCriteria(customer.getId(), null, null);
+        byItem.setItemId(book.getId());
+        assertEquals(List.of(dearAtlas, bookOnly), searchIds(byItem));
+
+        BillSearchCriteria byCategory = new BillSearchCriteria(customer.getId(), null, null);
+        byCategory.setCategory(category);
+        assertEquals(List.of(dearAtlas, cheapAtlas), searchIds(byCategory));
+
+        byCategory.setMaxAmountCents(Money.ofMajor(1500.0));
+        assertEquals(List.of(cheapAtlas), searchIds(byCategory));
+
+        BillSearchCriteria byAmount = new BillSearchCriteria(customer.getId(), null, null);
+        byAmount.setMinAmountCents(Money.ofMajor(1000.0));
+        assertEquals(List.of(dearAtlas, cheapAtlas), searchIds(byAmount));
+    }
+
+    @Test
+    public void testBillSummariesAreReadInOneStatement() {
+        Item book = TestData.item(itemRepository, 250.0, 10);
+        Item pen = TestData.item(itemRepository, 250.0, 10);
+        for (int i = 0; i < 3; i++) {
+            billService.createBill(new BillDTO(customer.getId(), List.of(
+                    new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2))));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BillPage page = billService.getBillPage(customer.getId(), null, null, null, 10);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, page.getBills().size());
+        BillSummary summary = page.getBills().get(0);
+        assertEquals(2, summary.getLineCount());
+        assertEquals(750.0, summary.getTotalAmount());
+        assertEquals(customer.getId(), summary.getUserId());
+    }
+
+    @Test
+    public void testBillDetailIsLoadedAndRenderedInOneStatement() throws Exception {
+        // Two roles and three lines: a join on both collections must not duplicate the lines
+        customer.setRoles(new HashSet<>(roleRepository.findAll()));
+        customer = userRepository.save(customer);
+        List<BillItemDTO> lines = List.of(
+                new BillItemDTO(TestData.item(itemRepository, 250.0, 10).getId(), 1),
+                new BillItemDTO(TestData.item(itemRepository, 250.0, 10).getId(), 2),
+                new BillItemDTO(TestData.item(itemRepository, 250.0, 10).getId(), 3));
+        Long billId = billService.createBill(new BillDTO(customer.getId(), lines)).getId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Bill bill = billService.getBillById(billId);
+        // Walks bill.items[*].item and bill.user.roles, like the JSON, print and PDF views
+        String json = objectMapper.writeValueAsString(bill);
+        bill.getItems().forEach(line -> line.getItem().getName());
+        bill.getUser().getRoles().size();
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "Bill detail should load in a single statement");
+        assertEquals(3, bill.getItems().size());
+        assertTrue(bill.getUser().getRoles().size() >= 2);
+        assertTrue(json.contains("\"items\""));
+    }
+
+    private List<Long> searchIds(BillSearchCriteria criteria) {
+        return billService.searchBills(criteria, null, 10).getBills().stream().map(BillSummary::getId).toList();
+    }
+
+    private long statementsForBillWithLines(int lines) {
+        List<BillItemDTO> billItems = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            billItems.add(new BillItemDTO(TestData.item(itemRepository, 250.0, 100).getId(), 1));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        billService.createBill(new BillDTO(customer.getId(), billItems));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long jdbcStatementsForBillWithLines(int lines) {
+        List<BillItemDTO> billItems = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            billItems.add(new BillItemDTO(TestData.item(itemRepository, 250.0, 100).getId(), 1));
+        }
+
+        JdbcStatementCounter.executed.set(0);
+        JdbcStatementCounter.counted = Thread.currentThread();
+        try {
+            billService.createBill(new BillDTO(customer.getId(), billItems));
+        } finally {
+            JdbcStatementCounter.counted = null;
+        }
+        return JdbcStatementCounter.executed.get();
+    }
+
+    // Wraps the DataSource to count the statements (a batch counts once) the measured thread executes
+    @TestConfiguration
+    static class JdbcStatementCounter {
+
+        static final AtomicLong executed = new AtomicLong();
+        static volatile Thread counted;
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? wrap(bean, DataSource.class) : bean;
+                }
+            };
+        }
+
+        private static Object wrap(Object target, Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (method.getName().startsWith("execute") && Thread.currentThread() == counted) {
+                    executed.incrementAndGet();
+                }
+                Class<?> returned = method.getReturnType();
+                boolean jdbc = returned == Connection.class || returned == Statement.class
+                        || returned == PreparedStatement.class || returned == CallableStatement.class;
+                return jdbc && result != null ? wrap(result, returned) : result;
+            });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.DashboardStats;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.DashboardService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pooled connections are only held for the work that needs them, never for a whole request
+@SpringBootTest
+@ActiveProfiles("test")
+public class ConnectionPoolTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ServerProperties serverProperties;
+
+    @Autowired
+    private BillService billService;
+
+    @Test
+    public void testRequestsDoNotHoldAnEntityManagerOpen() {
+        // With open-in-view, every request (including a 30-minute bill stream) keeps a connection
+        assertTrue(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty());
+    }
+
+    @Test
+    public void testDashboardRunsOnTheCallersConnection() throws Exception {
+        // Every connection but one is busy; the dashboard must not need a second
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 1; i < dataSource.getMaximumPoolSize(); i++) {
+                held.add(dataSource.getConnection());
+            }
+            DashboardStats stats = new TransactionTemplate(transactionManager)
+                    .execute(status -> dashboardService.getStats(null, true));
+
+            assertNotNull(stats);
+            assertNotNull(stats.getTotalUsers());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    public void testPoolIsSizedFromTheRequestThreadsAndLeavesRoomForIdBlocks() {
+        int poolSize = dataSource.getMaximumPoolSize();
+        assertEquals(serverProperties.getTomcat().getThreads().getMax(), poolSize);
+
+        // Bill transactions can never hold every connection the id block reservations need
+        Semaphore commitPermits = (Semaphore) ReflectionTestUtils.getField(billService, "commitPermits");
+        assertEquals(poolSize - 2, commitPermits.availablePermits());
+    }
+}
@@ -0,0 +1,127 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.CustomerSpend;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.CustomerSpendRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.CustomerSpendService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomerSpendServiceTest {
+
+    @Autowired
+    private CustomerSpendService customerSpendService;
+
+    @Autowired
+    private CustomerSpendRepository customerSpendRepository;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Item book;
+
+    @BeforeEach
+    public void setUp() {
+        book = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 100));
+    }
+
+    @Test
+    public void testSpendFollowsCreatedAndDeletedBills() {
+        User customer = TestData.customer(userRepository);
+        Bill first = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+        Bill second = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 2))));
+
+        CustomerSpend spend = customerSpendRepository.findById(customer.getId()).orElseThrow();
+        assertEquals(2, spend.getBillCount());
+        assertEquals(75000, spend.getTotalSpentCents());
+        assertEquals(second.getBillDate().truncatedTo(ChronoUnit.SECONDS), spend.getLastPurchaseAt().truncatedTo(ChronoUnit.SECONDS));
+
+        // Deleting the latest bill moves the last purchase back to the one before
+        billService.deleteBill(second.getId());
+        spend = customerSpendRepository.findById(customer.getId()).orElseThrow();
+        assertEquals(1, spend.getBillCount());
+        assertEquals(25000, spend.getTotalSpentCents());
+        assertEquals(first.getBillDate().truncatedTo(ChronoUnit.SECONDS), spend.getLastPurchaseAt().truncatedTo(ChronoUnit.SECONDS));
+
+        billService.deleteBill(first.getId());
+        assertTrue(customerSpendRepository.findById(customer.getId()).isEmpty());
+    }
+
+    @Test
+    public void testBatchCountsNewAndExistingCustomersTogether() {
+        User regular = TestData.customer(userRepository);
+        User newcomer = TestData.customer(userRepository);
+        billService.createBill(new BillDTO(regular.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+
+        // One batch of updates (regular) and one of inserts (newcomer)
+        billService.createBills(List.of(
+                new BillDTO(regular.getId(), List.of(new BillItemDTO(book.getId(), 2))),
+                new BillDTO(newcomer.getId(), List.of(new BillItemDTO(book.getId(), 1))),
+                new BillDTO(newcomer.getId(), List.of(new BillItemDTO(book.getId(), 3)))), 0, null);
+
+        CustomerSpend spend = customerSpendRepository.findById(regular.getId()).orElseThrow();
+        assertEquals(2, spend.getBillCount());
+        assertEquals(75000, spend.getTotalSpentCents());
+        spend = customerSpendRepository.findById(newcomer.getId()).orElseThrow();
+        assertEquals(2, spend.getBillCount());
+        assertEquals(100000, spend.getTotalSpentCents());
+    }
+
+    @Test
+    public void testRepairFixesDriftedRows() {
+        User drifted = TestData.customer(userRepository);
+        User missing = TestData.customer(userRepository);
+        billService.createBill(new BillDTO(drifted.getId(), List.of(new BillItemDTO(book.getId(), 3))));
+        billService.createBill(new BillDTO(missing.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+        jdbcTemplate.update("UPDATE customer_spend SET bill_count = 9, total_spent_cents = 1 WHERE user_id = ?", drifted.getId());
+        jdbcTemplate.update("DELETE FROM customer_spend WHERE user_id = ?", missing.getId());
+
+        assertTrue(customerSpendService.repair() >= 2);
+
+        CustomerSpend spend = customerSpendRepository.findById(drifted.getId()).orElseThrow();
+        assertEquals(1, spend.getBillCount());
+        assertEquals(75000, spend.getTotalSpentCents());
+        assertEquals(25000, customerSpendRepository.findById(missing.getId()).orElseThrow().getTotalSpentCents());
+    }
+
+    @Test
+    public void testUsersSortBySpend() {
+        User small = TestData.customer(userRepository);
+        User big = TestData.customer(userRepository);
+        User none = TestData.customer(userRepository);
+        billService.createBill(new BillDTO(small.getId(), List.of(new BillItemDTO(book.getId(), 1))));
+        billService.createBill(new BillDTO(big.getId(), List.of(new BillItemDTO(book.getId(), 4))));
+
+        List<Long> ids = userRepository.findAllOrderBySpendDesc().stream().map(User::getId).toList();
+        assertTrue(ids.indexOf(big.getId()) < ids.indexOf(small.getId()));
+        assertTrue(ids.indexOf(small.getId()) < ids.indexOf(none.getId()));
+    }
+}
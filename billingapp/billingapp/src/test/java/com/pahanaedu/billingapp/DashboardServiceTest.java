@@ -0,0 +1,104 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.BillSummary;
+import com.pahanaedu.billingapp.dto.DashboardStats;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillArchiveService;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.DashboardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DashboardServiceTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BillArchiveService billArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testCustomerStatsAreAggregatedFromTheirOwnBills() {
+        Item book = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 100));
+        Item pen = itemRepository.save(new Item("Pen " + UUID.randomUUID(), "Test item", 12.5, 100));
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            created.add(billService.createBill(new BillDTO(customer.getId(), List.of(
+                    new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2)))).getId());
+        }
+
+        DashboardStats stats = dashboardService.getStats(customer.getId(), false);
+
+        assertEquals(6, stats.getTotalBills());
+        assertEquals(6 * 275.0, stats.getTotalAmount());
+        assertEquals(18, stats.getItemsSold());
+        assertNull(stats.getTotalUsers());
+        assertEquals(created.reversed().subList(0, 5),
+                stats.getRecentBills().stream().map(BillSummary::getId).toList());
+    }
+
+    @Test
+    public void testCustomerStatsStillAgreeAfterTheirBillsAreArchived() {
+        Item book = TestData.item(itemRepository, 250.0, 100);
+        for (int i = 0; i < 3; i++) {
+            Bill bill = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 2))));
+            if (i > 0) {
+                jdbcTemplate.update("UPDATE bill SET bill_date = ? WHERE id = ?", LocalDateTime.now().minusYears(3), bill.getId());
+            }
+        }
+        billArchiveService.archiveBillsBefore(LocalDateTime.now().minusYears(1));
+
+        DashboardStats stats = dashboardService.getStats(customer.getId(), false);
+
+        assertEquals(3, stats.getTotalBills());
+        assertEquals(3 * 500.0, stats.getTotalAmount());
+        assertEquals(6, stats.getItemsSold());
+    }
+
+    @Test
+    public void testAdminStatsCoverAllBillsAndUsers() {
+        DashboardStats stats = dashboardService.getStats(null, true);
+
+        assertTrue(stats.getTotalUsers() >= 1);
+        assertTrue(stats.getTotalItems() >= 0);
+        assertTrue(stats.getRecentBills().size() <= 5);
+    }
+}
@@ -0,0 +1,145 @@
+package com.pahanaedu.billingapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyServiceTest {
+
+    private final IdempotencyService idempotencyService = new IdempotencyService(new ObjectMapper(), 60, 3);
+
+    private final BillDTO request = new BillDTO(1L, List.of(new BillItemDTO(7L, 2)));
+
+    @Test
+    public void testConcurrentDuplicatesRunTheActionOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.execute("key", request, () -> {
+                    sleep(50);
+                    return executions.incrementAndGet();
+                });
+            }));
+        }
+        start.countDown();
+
+        for (Future<Integer> result : results) {
+            assertEquals(1, result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testFailedActionIsNotRemembered() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("key", request, () -> {
+            throw new IllegalArgumentException("Insufficient stock");
+        }));
+
+        assertEquals("created", idempotencyService.execute("key", request, () -> "created"));
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute("key", request, () -> "created");
+        BillDTO other = new BillDTO(1L, List.of(new BillItemDTO(7L, 3)));
+
+        assertThrows(IdempotencyService.KeyReusedException.class,
+                () -> idempotencyService.execute("key", other, () -> "created again"));
+    }
+
+    @Test
+    public void testOldestKeysAreEvictedPastTheLimit() {
+        for (int i = 0; i < 4; i++) {
+            idempotencyService.execute("key-" + i, request, () -> "first run");
+        }
+
+        assertEquals("second run", idempotencyService.execute("key-0", request, () -> "second run"));
+        assertEquals("first run", idempotencyService.execute("key-3", request, () -> "second run"));
+    }
+
+    @Test
+    public void testRetriedKeyIsEvictedByItsLatestEntry() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> first = executor.submit(() -> idempotencyService.execute("retried", request, () -> {
+            running.countDown();
+            await(fail);
+            throw new IllegalArgumentException("Insufficient stock");
+        }));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        idempotencyService.execute("key-0", request, () -> "first run");
+        idempotencyService.execute("key-1", request, () -> "first run");
+        fail.countDown();
+        assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        idempotencyService.execute("retried", request, () -> "first run");
+        idempotencyService.execute("key-2", request, () -> "first run");
+
+        // The retry is newer than key-0, so key-0 is the one evicted
+        assertEquals("first run", idempotencyService.execute("retried", request, () -> "second run"));
+        assertEquals("second run", idempotencyService.execute("key-0", request, () -> "second run"));
+    }
+
+    @Test
+    public void testRunningKeysAreNotEvicted() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> first = executor.submit(() -> idempotencyService.execute("slow", request, () -> {
+            running.countDown();
+            await(finish);
+            return executions.incrementAndGet();
+        }));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // Enough newer keys to push the running one past the limit
+        for (int i = 0; i < 4; i++) {
+            idempotencyService.execute("key-" + i, request, () -> "first run");
+        }
+        Future<Integer> repeat = executor.submit(() -> idempotencyService.execute("slow", request, executions::incrementAndGet));
+        finish.countDown();
+
+        assertEquals(1, first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, repeat.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
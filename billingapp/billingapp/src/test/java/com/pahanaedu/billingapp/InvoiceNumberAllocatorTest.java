@@ -0,0 +1,107 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.InvoiceNumberAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class InvoiceNumberAllocatorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testTwoInstancesNeverHandOutTheSameNumber() throws Exception {
+        // Two allocators with their own blocks stand in for two app instances on one database
+        String branch = "T" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        InvoiceNumberAllocator first = new InvoiceNumberAllocator(jdbcTemplate, transactionManager, branch, 10);
+        InvoiceNumberAllocator second = new InvoiceNumberAllocator(jdbcTemplate, transactionManager, branch, 10);
+        int perThread = 250;
+        int threads = 8;
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            InvoiceNumberAllocator allocator = t % 2 == 0 ? first : second;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(numbers.add(allocator.next(2026)), "Duplicate invoice number");
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, numbers.size());
+        long highest = numbers.stream().mapToLong(n -> Long.parseLong(n.substring(n.lastIndexOf('-') + 1))).max().orElseThrow();
+        // At most the unused rest of each instance's current block is skipped
+        assertTrue(highest <= threads * perThread + 2 * 10, "Too many gaps: highest number " + highest);
+    }
+
+    @Test
+    public void testNumbersRestartEachYear() {
+        String branch = "Y" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        InvoiceNumberAllocator allocator = new InvoiceNumberAllocator(jdbcTemplate, transactionManager, branch, 5);
+
+        assertEquals(branch + "-2026-000001", allocator.next(2026));
+        assertEquals(branch + "-2026-000002", allocator.next(2026));
+        assertEquals(branch + "-2027-000001", allocator.next(2027));
+    }
+
+    @Test
+    public void testCreatedBillGetsAnInvoiceNumber() {
+        User customer = TestData.customer(userRepository);
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 250.0, 5));
+
+        Bill bill = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 1))));
+
+        assertTrue(bill.getInvoiceNumber().matches("PE-" + LocalDate.now().getYear() + "-\\d{6}"), bill.getInvoiceNumber());
+        assertEquals(bill.getInvoiceNumber(), bill.getDisplayNumber());
+    }
+}
@@ -0,0 +1,122 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.ItemPopularity;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.repository.ItemPopularityRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.ItemPopularityService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class ItemPopularityServiceTest {
+
+    @Autowired
+    private ItemPopularityService itemPopularityService;
+
+    @Autowired
+    private ItemPopularityRepository popularityRepository;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testFeaturedItemsAreRankedBySales() {
+        Item bestSeller = itemRepository.save(new Item("Atlas " + UUID.randomUUID(), "Test item", 10.0, 10_000));
+        Item runnerUp = itemRepository.save(new Item("Globe " + UUID.randomUUID(), "Test item", 10.0, 10_000));
+        Item soldOut = itemRepository.save(new Item("Map " + UUID.randomUUID(), "Test item", 10.0, 5_000));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(bestSeller.getId(), 9_000))));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(runnerUp.getId(), 6_000))));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(soldOut.getId(), 5_000))));
+
+        itemPopularityService.refresh();
+
+        List<Long> featured = itemPopularityService.getFeaturedItems().stream().map(Item::getId).toList();
+        assertEquals(List.of(bestSeller.getId(), runnerUp.getId()), featured.subList(0, 2));
+        assertFalse(featured.contains(soldOut.getId()), "Items without stock are not featured");
+        assertTrue(popularityRepository.findById(bestSeller.getId()).orElseThrow().getScore() > 0);
+    }
+
+    @Test
+    public void testRefreshOnlyReadsTheScoresOfItemsSoldSinceTheLastOne() {
+        Item atlas = itemRepository.save(new Item("Atlas " + UUID.randomUUID(), "Test item", 10.0, 100));
+        Item globe = itemRepository.save(new Item("Globe " + UUID.randomUUID(), "Test item", 10.0, 100));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(atlas.getId(), 1))));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(globe.getId(), 1))));
+        itemPopularityService.refresh();
+
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(atlas.getId(), 1))));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        itemPopularityService.refresh();
+
+        assertEquals(1, statistics.getEntityStatistics(ItemPopularity.class.getName()).getLoadCount());
+        assertEquals(2.0, popularityRepository.findById(atlas.getId()).orElseThrow().getScore(), 0.01);
+    }
+
+    @Test
+    public void testRolledBackBillsAreNotCounted() {
+        Item item = itemRepository.save(new Item("Compass " + UUID.randomUUID(), "Test item", 10.0, 1));
+        assertThrows(IllegalArgumentException.class, () -> billService.createBill(
+                new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 5)))));
+
+        itemPopularityService.refresh();
+
+        assertTrue(popularityRepository.findById(item.getId()).isEmpty());
+    }
+
+    @Test
+    public void testScheduledRefreshWaitsForStartup() {
+        itemRepository.save(new Item("Ruler " + UUID.randomUUID(), "Test item", 10.0, 10));
+        // Like the scheduler firing before the rollup backfill has run
+        ItemPopularityService starting = new ItemPopularityService(
+                popularityRepository, itemRepository, rollupRepository, transactionManager, 72, 24);
+
+        starting.refresh();
+        assertTrue(starting.getFeaturedItems().isEmpty());
+
+        starting.start();
+        assertFalse(starting.getFeaturedItems().isEmpty());
+    }
+}
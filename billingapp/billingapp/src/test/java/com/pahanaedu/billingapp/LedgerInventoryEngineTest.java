@@ -0,0 +1,250 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.LowStockItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.StockMovementRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.InventoryEngine;
+import com.pahanaedu.billingapp.service.ItemService;
+import com.pahanaedu.billingapp.service.JpaInventoryEngine;
+import com.pahanaedu.billingapp.service.LedgerInventoryEngine;
+import com.pahanaedu.billingapp.service.StockAlertService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.inventory.engine=ledger",
+        "app.inventory.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+public class LedgerInventoryEngineTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerInventoryEngineTest.class);
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private LedgerInventoryEngine ledger;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+    }
+
+    @Test
+    public void testConcurrentBillsAreFlushedToExactStock() throws Exception {
+        Item first = TestData.item(itemRepository, 250.0, 150);
+        Item second = TestData.item(itemRepository, 250.0, 1000);
+
+        int created = runConcurrently(200, i -> {
+            try {
+                billService.createBill(new BillDTO(customer.getId(), List.of(
+                        new BillItemDTO(first.getId(), 1), new BillItemDTO(second.getId(), 2))));
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+
+        assertEquals(150, created);
+        assertEquals(0, ledger.availableStock(first.getId()));
+        // Nothing reaches the item table until the flusher runs
+        assertEquals(150, stockInDatabase(first));
+
+        ledger.flush();
+
+        assertEquals(0, stockInDatabase(first));
+        assertEquals(1000 - 2 * created, stockInDatabase(second));
+    }
+
+    @Test
+    public void testLedgerIsRebuiltFromUnflushedMovementsAfterRestart() {
+        Item item = TestData.item(itemRepository, 250.0, 20);
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 7))));
+        assertEquals(20, stockInDatabase(item));
+
+        // A fresh engine has no counters, like the one started after a crash
+        LedgerInventoryEngine restarted = new LedgerInventoryEngine(
+                itemRepository, movementRepository, transactionManager, 500);
+        assertEquals(13, restarted.availableStock(item.getId()));
+
+        restarted.flush();
+        assertEquals(13, stockInDatabase(item));
+        assertEquals(13, restarted.availableStock(item.getId()));
+    }
+
+    @Test
+    public void testFailedBillReleasesReservedStock() {
+        Item item = TestData.item(itemRepository, 250.0, 5);
+        BillDTO billDTO = new BillDTO(customer.getId(), List.of(
+                new BillItemDTO(item.getId(), 3), new BillItemDTO(-1L, 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> billService.createBill(billDTO));
+
+        assertEquals(5, ledger.availableStock(item.getId()));
+    }
+
+    @Test
+    public void testStockEditKeepsReservationsOfOpenBills() throws Exception {
+        Item item = TestData.item(itemRepository, 250.0, 10);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch edited = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<?> bill = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            ledger.reserve(Map.of(item.getId(), 6));
+            reserved.countDown();
+            try {
+                edited.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(reserved.await(10, TimeUnit.SECONDS));
+
+        // An admin edit while the bill is still open reloads the counter from the database
+        Item edit = itemRepository.findById(item.getId()).orElseThrow();
+        edit.setDescription("Edited");
+        itemRepository.save(edit);
+        ledger.stockChanged(item.getId());
+        assertEquals(4, ledger.availableStock(item.getId()));
+
+        edited.countDown();
+        bill.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(4, ledger.availableStock(item.getId()));
+        assertThrows(IllegalArgumentException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> ledger.reserve(Map.of(item.getId(), 5))));
+        ledger.flush();
+        assertEquals(4, stockInDatabase(item));
+    }
+
+    @Test
+    public void testEditingAnItemKeepsItsLowStockAlertWhileSalesAreUnflushed() {
+        Item item = TestData.item(itemRepository, 250.0, 10);
+        item.setLowStockThreshold(5);
+        item = itemService.saveItem(item);
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 7))));
+        assertEquals(3, lowStock(item).getStock());
+
+        // item.stock is still 10 until the flusher runs; the alert must follow the ledger
+        Item edited = itemRepository.findById(item.getId()).orElseThrow();
+        edited.setDescription("Edited");
+        itemService.saveItem(edited);
+
+        assertEquals(10, stockInDatabase(item));
+        assertEquals(3, lowStock(item).getStock());
+    }
+
+    @Test
+    public void testLedgerAgainstJpaEngineUnderContention() throws Exception {
+        int reservations = 2000;
+        Item jpaItem = TestData.item(itemRepository, 250.0, reservations);
+        Item ledgerItem = TestData.item(itemRepository, 250.0, reservations);
+
+        long jpaNanos = timeReservations(new JpaInventoryEngine(itemRepository), jpaItem, reservations);
+        long ledgerNanos = timeReservations(ledger, ledgerItem, reservations);
+        ledger.flush();
+
+        logger.info("{} single-unit reservations on one hot item: jpa {} ms, ledger {} ms",
+                reservations, jpaNanos / 1_000_000, ledgerNanos / 1_000_000);
+        assertEquals(0, stockInDatabase(jpaItem));
+        assertEquals(0, stockInDatabase(ledgerItem));
+    }
+
+    private long timeReservations(InventoryEngine engine, Item item, int reservations) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long started = System.nanoTime();
+        int reserved = runConcurrently(reservations, i -> {
+            transactionTemplate.executeWithoutResult(status -> engine.reserve(Map.of(item.getId(), 1)));
+            return true;
+        });
+        assertEquals(reservations, reserved);
+        return System.nanoTime() - started;
+    }
+
+    private int runConcurrently(int tasks, Task task) throws Exception {
+        // Engines called directly bypass BillService's commit limit, so stay below the pool size
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            results.add(executor.submit((Callable<Boolean>) () -> {
+                start.await();
+                return task.run(index);
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+        return succeeded;
+    }
+
+    private LowStockItem lowStock(Item item) {
+        return stockAlertService.getLowStock().stream()
+                .filter(low -> low.getItemId().equals(item.getId()))
+                .findFirst().orElseThrow();
+    }
+
+    private int stockInDatabase(Item item) {
+        return itemRepository.findById(item.getId()).orElseThrow().getStock();
+    }
+
+    private interface Task {
+        boolean run(int index) throws Exception;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.config.MoneyColumnMigrator;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class MoneyColumnMigratorTest {
+
+    @Autowired
+    private MoneyColumnMigrator migrator;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testLegacyPriceColumnIsCopiedToCentsAndDropped() {
+        Item item = itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", 0.0, 1));
+        // Recreate the column a database from before the switch to cents still has
+        jdbcTemplate.execute("ALTER TABLE item ADD COLUMN price DOUBLE");
+        jdbcTemplate.update("UPDATE item SET price = 12.35 WHERE id = ?", item.getId());
+
+        migrator.migrate();
+
+        Item migrated = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(1235, migrated.getPriceCents());
+        assertEquals(12.35, migrated.getPrice());
+        assertThrows(Exception.class, () -> jdbcTemplate.queryForList("SELECT price FROM item"));
+    }
+}
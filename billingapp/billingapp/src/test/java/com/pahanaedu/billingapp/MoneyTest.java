@@ -0,0 +1,92 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.util.Money;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoneyTest.class);
+
+    @Test
+    public void testOfMajorRoundsToTheNearestCent() {
+        assertEquals(1999, Money.ofMajor(19.99));
+        assertEquals(30, Money.ofMajor(0.1 + 0.2));
+        assertEquals(1235, Money.ofMajor(12.345));
+        assertEquals(-250, Money.ofMajor(-2.5));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMajor(Double.NaN));
+    }
+
+    @Test
+    public void testSumsAreExactWhereDoublesDrift() {
+        double doubleTotal = 0;
+        long total = 0;
+        for (int i = 0; i < 1000; i++) {
+            doubleTotal += 0.1;
+            total = Money.add(total, Money.ofMajor(0.1));
+        }
+
+        assertNotEquals(100.0, doubleTotal);
+        assertEquals(10000, total);
+        assertEquals("100.00", Money.format(total));
+        assertEquals(new BigDecimal("100.00"), Money.toBigDecimal(total));
+    }
+
+    @Test
+    public void testOverflowIsReportedInsteadOfWrapping() {
+        assertThrows(ArithmeticException.class, () -> Money.multiply(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+    }
+
+    // No JMH in this build: a warmed-up timing comparison, logged for reference
+    @Test
+    public void testSummingLinesAgainstBigDecimalAndDouble() {
+        int lines = 1_000_000;
+        long[] priceCents = new long[lines];
+        int[] quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            priceCents[i] = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+            quantities[i] = ThreadLocalRandom.current().nextInt(1, 20);
+        }
+
+        long fixedNanos = 0;
+        long bigDecimalNanos = 0;
+        long doubleNanos = 0;
+        long fixedTotal = 0;
+        BigDecimal bigDecimalTotal = BigDecimal.ZERO;
+        for (int round = 0; round < 5; round++) {
+            long started = System.nanoTime();
+            fixedTotal = 0;
+            for (int i = 0; i < lines; i++) {
+                fixedTotal = Money.add(fixedTotal, Money.multiply(priceCents[i], quantities[i]));
+            }
+            fixedNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            bigDecimalTotal = BigDecimal.ZERO;
+            for (int i = 0; i < lines; i++) {
+                bigDecimalTotal = bigDecimalTotal.add(
+                        BigDecimal.valueOf(priceCents[i], 2).multiply(BigDecimal.valueOf(quantities[i])));
+            }
+            bigDecimalNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            double doubleTotal = 0;
+            for (int i = 0; i < lines; i++) {
+                doubleTotal += priceCents[i] / 100.0 * quantities[i];
+            }
+            doubleNanos = System.nanoTime() - started;
+            assertTrue(doubleTotal > 0);
+        }
+
+        logger.info("Summing {} bill lines: long cents {} ms, BigDecimal {} ms, double {} ms",
+                lines, fixedNanos / 1_000_000, bigDecimalNanos / 1_000_000, doubleNanos / 1_000_000);
+        assertEquals(bigDecimalTotal, Money.toBigDecimal(fixedTotal));
+    }
+}
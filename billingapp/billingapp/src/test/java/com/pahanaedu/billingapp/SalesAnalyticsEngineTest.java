@@ -0,0 +1,165 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.SalesAnalyticsEngine;
+import com.pahanaedu.billingapp.service.SalesAnalyticsEngine.Dimension;
+import com.pahanaedu.billingapp.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own context (and so its own in-memory database), loaded with synthetic bills through JDBC
+@SpringBootTest(properties = "app.analytics.preload=false")
+@ActiveProfiles("test")
+public class SalesAnalyticsEngineTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsEngineTest.class);
+
+    private static final int BILLS = 20_000;
+    private static final long FIRST_BILL_ID = 50_000_000L;
+    private static final String[] CATEGORIES = {"Fiction", "Science", "Stationery", "Kids"};
+    private static boolean seeded;
+
+    @Autowired
+    private SalesAnalyticsEngine salesAnalyticsEngine;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        if (!seeded) {
+            seed();
+            seeded = true;
+        }
+    }
+
+    @Test
+    public void testRevenueByCategoryByWeekMatchesSqlOnH2() {
+        String sql = "SELECT i.category, DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(b.bill_date), CAST(b.bill_date AS DATE)),"
+                + " SUM(bi.quantity), SUM(bi.subtotal_cents) FROM bill b JOIN bill_item bi ON bi.bill_id = b.id"
+                + " JOIN item i ON i.id = bi.item_id WHERE b.id >= ?"
+                + " GROUP BY i.category, DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(b.bill_date), CAST(b.bill_date AS DATE))";
+        SalesAnalyticsEngine.Query query = new SalesAnalyticsEngine.Query(List.of(Dimension.CATEGORY, Dimension.WEEK));
+        salesAnalyticsEngine.query(query); // initial load
+
+        long sqlNanos = 0;
+        long engineNanos = 0;
+        Map<String, String> expected = new HashMap<>();
+        List<Map<String, Object>> rows = List.of();
+        for (int round = 0; round < 5; round++) {
+            long started = System.nanoTime();
+            expected.clear();
+            jdbcTemplate.query(sql, rs -> {
+                expected.put(rs.getString(1) + "|" + rs.getDate(2).toLocalDate(),
+                        rs.getLong(3) + "|" + Money.toMajor(rs.getLong(4)));
+            }, FIRST_BILL_ID - round); // a new parameter each round, so H2 cannot reuse a cached result
+            sqlNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            rows = salesAnalyticsEngine.query(query);
+            engineNanos = System.nanoTime() - started;
+        }
+
+        logger.info("Revenue by category by week over {} bill lines: SQL on H2 {} ms, analytics columns {} ms",
+                BILLS * 3, sqlNanos / 1_000_000, engineNanos / 1_000_000);
+        Map<String, String> actual = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            if (row.get("category") != null && List.of(CATEGORIES).contains(row.get("category"))) {
+                actual.put(row.get("category") + "|" + row.get("week"), row.get("quantity") + "|" + row.get("revenue"));
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testNewAndDeletedBillsAreReflectedIncrementally() {
+        User customer = TestData.customer(userRepository);
+        Item item = itemRepository.save(new Item("Atlas " + UUID.randomUUID(), "Test item", 40.0, 100));
+        SalesAnalyticsEngine.Query unitsPerCustomer = new SalesAnalyticsEngine.Query(List.of(Dimension.CUSTOMER))
+                .itemId(item.getId());
+        assertTrue(salesAnalyticsEngine.query(unitsPerCustomer).isEmpty());
+
+        Long billId = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 3)))).getId();
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), 2))));
+
+        List<Map<String, Object>> rows = salesAnalyticsEngine.query(unitsPerCustomer);
+        assertEquals(1, rows.size());
+        assertEquals(customer.getId(), rows.get(0).get("customer"));
+        assertEquals(5L, rows.get(0).get("quantity"));
+        assertEquals(200.0, rows.get(0).get("revenue"));
+
+        billService.deleteBill(billId);
+        assertEquals(2L, salesAnalyticsEngine.query(unitsPerCustomer).get(0).get("quantity"));
+        assertTrue(salesAnalyticsEngine.query(new SalesAnalyticsEngine.Query(List.of())
+                .itemId(item.getId()).from(LocalDate.now().plusDays(1))).isEmpty());
+    }
+
+    // 20,000 bills of three lines over the last year, inserted directly
+    private void seed() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Item item = new Item("Seed item " + i + " " + UUID.randomUUID(), "Test item", 5.0 + i, 1_000_000);
+            item.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            items.add(itemRepository.save(item));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(TestData.customer(userRepository));
+        }
+
+        Random random = new Random(42);
+        List<Object[]> bills = new ArrayList<>(BILLS);
+        List<Object[]> lines = new ArrayList<>(BILLS * 3);
+        LocalDateTime now = LocalDateTime.now();
+        for (int b = 0; b < BILLS; b++) {
+            long billId = FIRST_BILL_ID + b;
+            long total = 0;
+            for (int l = 0; l < 3; l++) {
+                Item item = items.get(random.nextInt(items.size()));
+                int quantity = 1 + random.nextInt(5);
+                long subtotal = item.getPriceCents() * quantity;
+                total += subtotal;
+                lines.add(new Object[]{billId * 3 + l, quantity, item.getPriceCents(), subtotal, billId, item.getId()});
+            }
+            bills.add(new Object[]{billId, Timestamp.valueOf(now.minusMinutes(random.nextInt(365 * 24 * 60))),
+                    total, users.get(random.nextInt(users.size())).getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bill (id, bill_date, total_amount_cents, user_id) VALUES (?, ?, ?, ?)", bills);
+        jdbcTemplate.batchUpdate("INSERT INTO bill_item (id, quantity, unit_price_cents, subtotal_cents, bill_id, item_id)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", lines);
+    }
+}
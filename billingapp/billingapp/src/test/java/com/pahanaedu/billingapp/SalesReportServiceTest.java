@@ -0,0 +1,170 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.SalesBucket;
+import com.pahanaedu.billingapp.dto.SalesTotal;
+import com.pahanaedu.billingapp.dto.ZReport;
+import com.pahanaedu.billingapp.model.Bill;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.SalesReportService;
+import com.pahanaedu.billingapp.util.Money;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own context (and database) so the seeded year is not shared with other tests
+@SpringBootTest(properties = "app.reports.parallelism=3")
+@ActiveProfiles("test")
+public class SalesReportServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesReportServiceTest.class);
+
+    private static final int BILLS = 20_000;
+    private static final long FIRST_BILL_ID = 2_000_000;
+    private static final LocalDateTime YEAR = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testHourlySeriesOfAYearMatchesTheBills() {
+        User customer = TestData.customer(userRepository);
+        Random random = new Random(7);
+        Map<LocalDateTime, long[]> expected = new HashMap<>();
+        List<Object[]> bills = new ArrayList<>(BILLS);
+        for (int b = 0; b < BILLS; b++) {
+            LocalDateTime billDate = YEAR.plusSeconds(random.nextInt(365 * 24 * 3600));
+            long total = 100 + random.nextInt(100_000);
+            long[] sums = expected.computeIfAbsent(billDate.truncatedTo(ChronoUnit.HOURS), hour -> new long[2]);
+            sums[0]++;
+            sums[1] += total;
+            bills.add(new Object[]{FIRST_BILL_ID + b, Timestamp.valueOf(billDate), total, customer.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bill (id, bill_date, total_amount_cents, user_id) VALUES (?, ?, ?, ?)", bills);
+
+        // Warm up, then time
+        salesReportService.timeSeries(SalesReportService.Bucket.HOUR, YEAR, YEAR.plusYears(1));
+        long start = System.nanoTime();
+        List<SalesBucket> hours = salesReportService.timeSeries(SalesReportService.Bucket.HOUR, YEAR, YEAR.plusYears(1));
+        long elapsed = System.nanoTime() - start;
+        logger.info("Hourly sales of a year: {} buckets from {} bills in {} ms", hours.size(), BILLS, elapsed / 1_000_000);
+
+        assertEquals(365 * 24, hours.size());
+        assertEquals(YEAR, hours.get(0).getStart());
+        for (SalesBucket hour : hours) {
+            long[] sums = expected.getOrDefault(hour.getStart(), new long[2]);
+            assertEquals(sums[0], hour.getBills(), "bills at " + hour.getStart());
+            assertEquals(sums[1], hour.getRevenueCents(), "revenue at " + hour.getStart());
+        }
+
+        List<SalesBucket> months = salesReportService.timeSeries(SalesReportService.Bucket.MONTH, YEAR, YEAR.plusYears(1));
+        assertEquals(12, months.size());
+        assertEquals(BILLS, months.stream().mapToLong(SalesBucket::getBills).sum());
+        assertEquals(hours.stream().mapToLong(SalesBucket::getRevenueCents).sum(),
+                months.stream().mapToLong(SalesBucket::getRevenueCents).sum());
+    }
+
+    @Test
+    public void testZReportTotalsTheDay() throws Exception {
+        User customer = TestData.customer(userRepository);
+        String category = "Stationery " + UUID.randomUUID().toString().substring(0, 8);
+        Item book = item("Book", 250.0, category);
+        Item pen = item("Pen", 12.5, category);
+        LocalDate today = LocalDate.now();
+        ZReport before = salesReportService.zReport(today);
+
+        Bill first = billService.createBill(new BillDTO(customer.getId(),
+                List.of(new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2))));
+        Bill last = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(pen.getId(), 4))));
+
+        ZReport report = salesReportService.zReport(today);
+        assertEquals(before.getBills() + 2, report.getBills());
+        assertEquals(before.getUnits() + 7, report.getUnits());
+        assertEquals(before.getRevenueCents() + 32500, report.getRevenueCents());
+        assertEquals(24, report.getHours().size());
+        assertEquals(last.getInvoiceNumber(), report.getLastInvoice());
+        if (before.getFirstInvoice() == null) {
+            assertEquals(first.getInvoiceNumber(), report.getFirstInvoice());
+        }
+        SalesTotal categoryTotal = report.getCategories().stream()
+                .filter(total -> category.equals(total.getCategory()))
+                .findFirst().orElseThrow();
+        assertEquals(7, categoryTotal.getQuantity());
+        assertEquals(32500, categoryTotal.getRevenueCents());
+
+        StringWriter csv = new StringWriter();
+        salesReportService.writeCsv(report, csv);
+        String[] rows = csv.toString().split("\n");
+        assertEquals("start,bills,revenue", rows[0]);
+        assertEquals(26, rows.length);
+        assertEquals("total," + report.getBills() + "," + Money.format(report.getRevenueCents()),
+                rows[25]);
+    }
+
+    @Test
+    public void testZReportFindsFirstAndLastBillAcrossLiveAndArchive() {
+        User customer = TestData.customer(userRepository);
+        LocalDate day = LocalDate.of(2022, 6, 15);
+        // The day is half archived: the archived bills open and close it
+        jdbcTemplate.update("INSERT INTO bill (id, bill_date, total_amount_cents, user_id, invoice_number) VALUES (?, ?, ?, ?, ?)",
+                1_900_001L, Timestamp.valueOf(day.atTime(10, 0)), 1000L, customer.getId(), "LIVE-1");
+        jdbcTemplate.update("INSERT INTO bill (id, bill_date, total_amount_cents, user_id, invoice_number) VALUES (?, ?, ?, ?, ?)",
+                1_900_002L, Timestamp.valueOf(day.atTime(18, 0)), 1000L, customer.getId(), "LIVE-2");
+        for (Object[] archived : List.of(new Object[]{1_900_003L, day.atTime(8, 0), "ARCHIVED-1"},
+                new Object[]{1_900_004L, day.atTime(20, 0), "ARCHIVED-2"})) {
+            jdbcTemplate.update("INSERT INTO archived_bill (id, user_id, bill_date, total_amount_cents, invoice_number,"
+                            + " items_sold, archived_at, payload) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    archived[0], customer.getId(), Timestamp.valueOf((LocalDateTime) archived[1]), 1000L, archived[2],
+                    0L, Timestamp.valueOf(LocalDateTime.now()), new byte[0]);
+        }
+
+        ZReport report = salesReportService.zReport(day);
+
+        assertEquals(4, report.getBills());
+        assertEquals("ARCHIVED-1", report.getFirstInvoice());
+        assertEquals(day.atTime(8, 0), report.getOpenedAt());
+        assertEquals("ARCHIVED-2", report.getLastInvoice());
+        assertEquals(day.atTime(20, 0), report.getClosedAt());
+    }
+
+    private Item item(String name, double price, String category) {
+        Item item = new Item(name + " " + UUID.randomUUID(), "Test item", price, 100);
+        item.setCategory(category);
+        return itemRepository.save(item);
+    }
+}
@@ -0,0 +1,126 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.SalesTotal;
+import com.pahanaedu.billingapp.model.DailySalesRollup;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.DailySalesRollupRepository;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.SalesRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SalesRollupServiceTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User customer;
+    private String category;
+    private Item book;
+    private Item pen;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+
+        category = "Stationery " + UUID.randomUUID().toString().substring(0, 8);
+        book = item("Book", 250.0);
+        pen = item("Pen", 12.5);
+    }
+
+    @Test
+    public void testRollupsFollowCreatedAndDeletedBills() {
+        LocalDate today = LocalDate.now();
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2))));
+        Long penOnly = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(pen.getId(), 4)))).getId();
+        Long bookOnly = billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 3)))).getId();
+
+        assertRollup(today, book, 4, 100000);
+        assertRollup(today, pen, 6, 7500);
+
+        billService.deleteBill(penOnly);
+        assertRollup(today, pen, 2, 2500);
+        billService.deleteBill(bookOnly);
+        assertRollup(today, book, 1, 25000);
+    }
+
+    @Test
+    public void testRebuildMatchesIncrementalRollups() {
+        LocalDate today = LocalDate.now();
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(book.getId(), 2), new BillItemDTO(pen.getId(), 1))));
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(pen.getId(), 5))));
+        SalesTotal incremental = categoryTotal(today);
+
+        rollupRepository.deleteAll(rollupRepository.findAllById(List.of(
+                new DailySalesRollup.Key(today, book.getId()), new DailySalesRollup.Key(today, pen.getId()))));
+        assertTrue(salesRollupService.rebuild(today, today.plusDays(1)) >= 2);
+
+        assertRollup(today, book, 2, 50000);
+        assertRollup(today, pen, 6, 7500);
+        SalesTotal rebuilt = categoryTotal(today);
+        assertEquals(incremental.getQuantity(), rebuilt.getQuantity());
+        assertEquals(incremental.getRevenueCents(), rebuilt.getRevenueCents());
+    }
+
+    @Test
+    public void testCategoryReportReadsTheRollups() {
+        LocalDate today = LocalDate.now();
+        Long billId = billService.createBill(new BillDTO(customer.getId(),
+                List.of(new BillItemDTO(book.getId(), 1), new BillItemDTO(pen.getId(), 2)))).getId();
+
+        SalesTotal total = categoryTotal(today);
+        assertEquals(3, total.getQuantity());
+        assertEquals(275.0, total.getRevenue());
+
+        // Rows whose last sale is deleted disappear from the report
+        billService.deleteBill(billId);
+        assertNull(categoryTotal(today));
+    }
+
+    private Item item(String name, double price) {
+        Item item = new Item(name + " " + UUID.randomUUID(), "Test item", price, 100);
+        item.setCategory(category);
+        return itemRepository.save(item);
+    }
+
+    private SalesTotal categoryTotal(LocalDate day) {
+        return rollupRepository.sumByCategory(day, day.plusDays(1)).stream()
+                .filter(total -> category.equals(total.getCategory()))
+                .findFirst().orElse(null);
+    }
+
+    private void assertRollup(LocalDate day, Item item, long quantity, long revenueCents) {
+        DailySalesRollup rollup = rollupRepository.findById(new DailySalesRollup.Key(day, item.getId())).orElseThrow();
+        assertEquals(quantity, rollup.getQuantity());
+        assertEquals(revenueCents, rollup.getRevenueCents());
+        assertEquals(category, rollup.getCategory());
+    }
+}
@@ -0,0 +1,129 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.controller.ItemRestController;
+import com.pahanaedu.billingapp.dto.BillDTO;
+import com.pahanaedu.billingapp.dto.BillItemDTO;
+import com.pahanaedu.billingapp.dto.LowStockItem;
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.UserRepository;
+import com.pahanaedu.billingapp.service.BillService;
+import com.pahanaedu.billingapp.service.ItemService;
+import com.pahanaedu.billingapp.service.StockAlertService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class StockAlertServiceTest {
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private ItemRestController itemRestController;
+
+    @Autowired
+    private BillService billService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = TestData.customer(userRepository);
+        // The low-stock view is for staff
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "staff", null, List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testAlertsOnceWhenLowAndOnceWhenOut() {
+        Item item = new Item("Atlas " + UUID.randomUUID(), "Test item", 40.0, 10);
+        item.setLowStockThreshold(3);
+        item = itemService.saveItem(item);
+        assertNull(lowStock(item));
+
+        long alerts = alertsRaised();
+        sell(item, 6);
+        assertNull(lowStock(item));
+        assertEquals(alerts, alertsRaised());
+
+        sell(item, 2);
+        LowStockItem low = lowStock(item);
+        assertNotNull(low);
+        assertEquals(2, low.getStock());
+        assertEquals(3, low.getThreshold());
+        assertEquals(LowStockItem.LOW, low.getLevel());
+        assertEquals(alerts + 1, alertsRaised());
+
+        // Still low: the index follows the stock but no second alert is raised
+        sell(item, 1);
+        assertEquals(1, lowStock(item).getStock());
+        assertEquals(low.getSince(), lowStock(item).getSince());
+        assertEquals(alerts + 1, alertsRaised());
+
+        sell(item, 1);
+        assertEquals(LowStockItem.OUT, lowStock(item).getLevel());
+        assertEquals(alerts + 2, alertsRaised());
+
+        // A restock above the threshold clears the entry and re-arms the alert
+        item.setStock(20);
+        item = itemService.saveItem(item);
+        assertNull(lowStock(item));
+        sell(item, 18);
+        assertEquals(alerts + 3, alertsRaised());
+    }
+
+    @Test
+    public void testDefaultThresholdAndDeletedItems() {
+        // No threshold of its own or for its category: app.stock-alert.default-threshold (5)
+        Item item = itemService.saveItem(new Item("Globe " + UUID.randomUUID(), "Test item", 15.0, 7));
+        sell(item, 1);
+        assertNull(lowStock(item));
+        sell(item, 1);
+        assertEquals(5, lowStock(item).getThreshold());
+
+        Item fresh = itemService.saveItem(new Item("Chalk " + UUID.randomUUID(), "Test item", 1.0, 2));
+        assertNotNull(lowStock(fresh), "A new item created at low stock is listed");
+
+        itemService.deleteItem(fresh.getId());
+        assertNull(lowStock(fresh));
+    }
+
+    private void sell(Item item, int quantity) {
+        billService.createBill(new BillDTO(customer.getId(), List.of(new BillItemDTO(item.getId(), quantity))));
+    }
+
+    private LowStockItem lowStock(Item item) {
+        List<LowStockItem> items = itemRestController.getLowStock().getBody();
+        assertNotNull(items);
+        return items.stream().filter(low -> item.getId().equals(low.getItemId())).findFirst().orElse(null);
+    }
+
+    private long alertsRaised() {
+        return (Long) stockAlertService.getStats().get("alertsRaised");
+    }
+}
@@ -0,0 +1,31 @@
+package com.pahanaedu.billingapp;
+
+import com.pahanaedu.billingapp.model.Item;
+import com.pahanaedu.billingapp.model.User;
+import com.pahanaedu.billingapp.repository.ItemRepository;
+import com.pahanaedu.billingapp.repository.UserRepository;
+
+import java.util.UUID;
+
+// Saved customers and items with unique names, so tests sharing a context (and database) never collide
+final class TestData {
+
+    private TestData() {}
+
+    static User customer(UserRepository userRepository) {
+        return customer(userRepository, null);
+    }
+
+    static User customer(UserRepository userRepository, String fullName) {
+        String name = "customer-" + UUID.randomUUID();
+        User customer = new User();
+        customer.setUsername(name);
+        customer.setEmail(name + "@example.com");
+        customer.setFullName(fullName);
+        return userRepository.save(customer);
+    }
+
+    static Item item(ItemRepository itemRepository, double price, int stock) {
+        return itemRepository.save(new Item("Book " + UUID.randomUUID(), "Test item", price, stock));
+    }
+}